@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link BenchmarkRunner} measures an operation the way a JMH benchmark in sample time mode with the gc
+ * profiler would, without the JMH build dependencies: it runs warmup iterations, then times every invocation of
+ * the measured iterations and reports the throughput, the latency percentiles and the allocations.
+ * The allocations, which JMH takes from its gc profiler, are read from the per-thread allocation counters of the
+ * HotSpot {@link com.sun.management.ThreadMXBean}, summed over all the threads so that the work an operation hands
+ * to other threads (like the request executor) is included. Unlike JMH, it runs in the calling JVM without
+ * forking, so compare builds from separate runs of the same benchmarks.
+ *
+ * @author agent - Initial contribution
+ */
+public class BenchmarkRunner {
+
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private final int warmupIterations;
+    private final int iterations;
+    private final int operationsPerIteration;
+
+    private final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+
+    /** Consumes the results of the operations, so the JIT cannot drop the work that produces them. */
+    private volatile int sink;
+
+    public BenchmarkRunner(int warmupIterations, int iterations, int operationsPerIteration) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.operationsPerIteration = operationsPerIteration;
+    }
+
+    /**
+     * Measures the operation and prints its results on one line.
+     */
+    public Result run(String name, Operation operation) throws Exception {
+        int invocation = 0;
+        for (int i = 0; i < warmupIterations; i++) {
+            for (int j = 0; j < operationsPerIteration; j++) {
+                consume(operation.run(invocation++));
+            }
+        }
+
+        long[] latencies = new long[iterations * operationsPerIteration];
+        int sample = 0;
+        long totalNanos = 0;
+        long allocatedBytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            Map<Long, Long> allocatedBefore = getAllocatedBytes();
+            long iterationStart = System.nanoTime();
+            for (int j = 0; j < operationsPerIteration; j++) {
+                long start = System.nanoTime();
+                consume(operation.run(invocation++));
+                latencies[sample++] = System.nanoTime() - start;
+            }
+            totalNanos += System.nanoTime() - iterationStart;
+            allocatedBytes += getAllocatedBytesSince(allocatedBefore);
+        }
+
+        Arrays.sort(latencies);
+        Result result = new Result(name, latencies, totalNanos, allocatedBytes);
+        System.out.println(result);
+        return result;
+    }
+
+    private void consume(Object result) {
+        sink ^= System.identityHashCode(result);
+    }
+
+    private Map<Long, Long> getAllocatedBytes() {
+        long[] threadIds = threadBean.getAllThreadIds();
+        long[] allocated = threadBean.getThreadAllocatedBytes(threadIds);
+        Map<Long, Long> allocatedBytes = new HashMap<>();
+        for (int i = 0; i < threadIds.length; i++) {
+            allocatedBytes.put(threadIds[i], allocated[i]);
+        }
+        return allocatedBytes;
+    }
+
+    private long getAllocatedBytesSince(Map<Long, Long> allocatedBefore) {
+        long allocatedBytes = 0;
+        for (Map.Entry<Long, Long> thread : getAllocatedBytes().entrySet()) {
+            Long before = allocatedBefore.get(thread.getKey());
+            // Threads started during the iteration count from 0, and a counter is -1 when it is not available
+            allocatedBytes += Math.max(0, thread.getValue() - (before != null ? Math.max(0, before) : 0));
+        }
+        return allocatedBytes;
+    }
+
+    @FunctionalInterface
+    public interface Operation {
+        /**
+         * Runs the operation once.
+         *
+         * @param invocation the number of the invocation, to rotate through the inputs
+         * @return the result of the operation, consumed by the runner
+         */
+        Object run(int invocation) throws Exception;
+    }
+
+    /**
+     * The measurements of one benchmark.
+     */
+    public static class Result {
+        private final String name;
+        private final long[] sortedLatencies;
+        private final long totalNanos;
+        private final long allocatedBytes;
+
+        Result(String name, long[] sortedLatencies, long totalNanos, long allocatedBytes) {
+            this.name = name;
+            this.sortedLatencies = sortedLatencies;
+            this.totalNanos = totalNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public double getOperationsPerSecond() {
+            return sortedLatencies.length * (double) TimeUnit.SECONDS.toNanos(1) / totalNanos;
+        }
+
+        /**
+         * Returns the given latency percentile (0-100) in ns.
+         */
+        public long getLatencyPercentileNanos(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))];
+        }
+
+        public double getAllocatedBytesPerOperation() {
+            return (double) allocatedBytes / sortedLatencies.length;
+        }
+
+        /** Allocation rate in MB/s, as reported by the JMH gc profiler. */
+        public double getAllocationRateMBPerSecond() {
+            return allocatedBytes / (1024.0 * 1024.0) * TimeUnit.SECONDS.toNanos(1) / totalNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder line = new StringBuilder(String.format("%-32s %12.0f ops/s", name, getOperationsPerSecond()));
+            for (double percentile : PERCENTILES) {
+                String label = percentile == (int) percentile ? String.valueOf((int) percentile)
+                        : String.valueOf(percentile);
+                line.append(String.format("  p%s=%.1f us", label, getLatencyPercentileNanos(percentile) / 1000.0));
+            }
+            line.append(String.format("  max=%.1f us", sortedLatencies[sortedLatencies.length - 1] / 1000.0));
+            line.append(String.format("  %.0f B/op  %.1f MB/s", getAllocatedBytesPerOperation(),
+                    getAllocationRateMBPerSecond()));
+            return line.toString();
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.spotify.internal.PlaybackCommandQueue.Refresh;
+
+/**
+ * Tests the order in which the {@link PlaybackCommandQueue} sends a batch of commands.
+ *
+ * @author agent - Initial contribution
+ */
+public class PlaybackCommandQueueTest {
+
+    private ScheduledExecutorService scheduler;
+    private PlaybackCommandQueue queue;
+
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch batchDone = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        queue = new PlaybackCommandQueue(scheduler, this::refreshed);
+    }
+
+    @After
+    public void tearDown() {
+        queue.dispose();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void supersedingCommandIsSentAfterTheCommandsQueuedBeforeIt() throws InterruptedException {
+        queue.coalesce("playerControl", command("play"), Refresh.PLAYBACK);
+        queue.enqueue(command("next"), Refresh.PLAYBACK);
+        queue.coalesce("playerControl", command("pause"), Refresh.PLAYBACK);
+
+        assertTrue(batchDone.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("next", "pause"), sent);
+    }
+
+    @Test
+    public void coalescedCommandsAreSentOnceWithTheLastValue() throws InterruptedException {
+        queue.coalesce("volume", command("volume 10"), Refresh.PLAYBACK);
+        queue.coalesce("volume", command("volume 20"), Refresh.PLAYBACK);
+        queue.enqueue(command("next"), Refresh.PLAYBACK);
+
+        assertTrue(batchDone.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("volume 20", "next"), sent);
+    }
+
+    private Supplier<CompletableFuture<Void>> command(String name) {
+        return () -> {
+            sent.add(name);
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+
+    private void refreshed(Set<Refresh> refreshes) {
+        batchDone.countDown();
+    }
+
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.eclipse.smarthome.core.thing.Channel;
+import org.eclipse.smarthome.core.thing.ChannelUID;
+import org.eclipse.smarthome.core.thing.ThingUID;
+import org.eclipse.smarthome.core.thing.binding.builder.ChannelBuilder;
+import org.eclipse.smarthome.core.types.StateDescription;
+import org.eclipse.smarthome.core.types.StateOption;
+
+import com.wrapper.spotify.IHttpManager;
+import com.wrapper.spotify.SpotifyApi;
+import com.wrapper.spotify.model_objects.miscellaneous.Device;
+import com.wrapper.spotify.model_objects.specification.PlaylistSimplified;
+
+/**
+ * The {@link SpotifyBenchmark} measures the hot paths of the polling and of the commands from the recorded Web API
+ * responses in <code>src/test/resources/benchmark</code>:
+ * <ul>
+ * <li>the processing of a playback poll: decoding the currently playing response and diffing it with the previous
+ * snapshot</li>
+ * <li>the diffing of the user's playlists by the playlists poll</li>
+ * <li>the state description of the playlists channel, as requested by the UIs</li>
+ * <li>the player commands of {@link PlaybackControl}, from the lookup of the device or playlist to the request
+ * handed to an http manager that answers right away</li>
+ * </ul>
+ * It prints the throughput, the latency percentiles and the allocations of each one (see {@link BenchmarkRunner}).
+ * Run it with the test classpath, optionally passing the warmup iterations, the measured iterations and the
+ * operations per iteration: <code>java org.openhab.binding.spotify.internal.SpotifyBenchmark 5 10 10000</code>.
+ *
+ * @author agent - Initial contribution
+ */
+public class SpotifyBenchmark {
+
+    private static final String FIXTURES = "/benchmark/";
+
+    public static void main(String[] args) throws Exception {
+        int warmupIterations = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int operationsPerIteration = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        BenchmarkRunner runner = new BenchmarkRunner(warmupIterations, iterations, operationsPerIteration);
+
+        benchmarkPlaybackPoll(runner);
+        benchmarkPlaylistsDiff(runner);
+        benchmarkStateDescription(runner);
+        benchmarkPlaybackCommands(runner);
+    }
+
+    private static void benchmarkPlaybackPoll(BenchmarkRunner runner) throws Exception {
+        String playing = readFixture("current-playback.json");
+        // The track progressed between the two polls, as it does between most polls
+        String[] responses = { playing, playing.replace("\"progress_ms\": 42000", "\"progress_ms\": 47000") };
+        CurrentPlaybackDecoder decoder = new CurrentPlaybackDecoder();
+        PlaybackSnapshot[] previous = { PlaybackSnapshot.EMPTY };
+
+        runner.run("playbackPoll", invocation -> {
+            PlaybackSnapshot snapshot = decoder.decode(responses[invocation % 2], previous[0]).getSnapshot();
+            int changes = snapshot.diff(previous[0]);
+            previous[0] = snapshot;
+            return changes;
+        });
+    }
+
+    private static void benchmarkPlaylistsDiff(BenchmarkRunner runner) throws Exception {
+        List<PlaylistSimplified> playlists = readPlaylists();
+        // A few playlists got new tracks, one was renamed, one was unfollowed and one moved to the top
+        List<PlaylistSimplified> changedPlaylists = new ArrayList<>(playlists);
+        for (int i = 0; i < 5; i++) {
+            PlaylistSimplified playlist = changedPlaylists.get(i * 20);
+            changedPlaylists.set(i * 20, copy(playlist, playlist.getName(), playlist.getSnapshotId() + "x"));
+        }
+        PlaylistSimplified renamed = changedPlaylists.get(7);
+        changedPlaylists.set(7, copy(renamed, renamed.getName() + " (old)", renamed.getSnapshotId()));
+        changedPlaylists.remove(11);
+        changedPlaylists.add(0, changedPlaylists.remove(changedPlaylists.size() - 1));
+        List<List<PlaylistSimplified>> updates = Arrays.asList(playlists, changedPlaylists);
+        AccountInformationCache accountInfo = new AccountInformationCache();
+
+        runner.run("playlistsDiff", invocation -> accountInfo.updateSavedPlaylists(updates.get(invocation % 2)));
+    }
+
+    private static void benchmarkStateDescription(BenchmarkRunner runner) throws Exception {
+        List<PlaylistSimplified> playlists = readPlaylists();
+        List<List<StateOption>> optionLists = Arrays.asList(createOptions(playlists),
+                createOptions(playlists.subList(1, playlists.size())));
+        SpotifyStateDescriptionOptionsProvider provider = new SpotifyStateDescriptionOptionsProvider();
+        ChannelUID channelUID = new ChannelUID(new ThingUID("spotify:player:benchmark"), "playlists");
+        Channel channel = ChannelBuilder.create(channelUID, "String").build();
+        StateDescription original = new StateDescription(null, null, null, "%s", false,
+                Collections.<StateOption> emptyList());
+        provider.setStateOptions(channelUID, optionLists.get(0));
+
+        runner.run("stateDescription", invocation -> {
+            // The playlists change now and then, the UIs ask for the description far more often
+            if (invocation % 1000 == 0) {
+                provider.setStateOptions(channelUID, optionLists.get(invocation / 1000 % 2));
+            }
+            return provider.getStateDescription(channel, original, Locale.ENGLISH);
+        });
+    }
+
+    private static void benchmarkPlaybackCommands(BenchmarkRunner runner) throws Exception {
+        Device[] devices = new Device.JsonUtil().createModelObjectArray(readFixture("devices.json"), "devices");
+        Map<String, Device> availableDevices = new LinkedHashMap<>();
+        for (Device device : devices) {
+            availableDevices.put(device.getName(), device);
+        }
+        List<PlaylistSimplified> playlists = readPlaylists();
+        AccountInformationCache accountInfo = new AccountInformationCache();
+        accountInfo.setAvailableDevices(availableDevices);
+        accountInfo.updateSavedPlaylists(playlists);
+        PlaybackInformationCache playbackInfo = new PlaybackInformationCache();
+        playbackInfo.setDeviceName(devices[0].getName());
+
+        SpotifyApi spotifyApi = new SpotifyApi.Builder().setAccessToken("benchmark")
+                .setHttpManager(new NoContentHttpManager()).build();
+        SpotifyRequestExecutor requestExecutor = new SpotifyRequestExecutor();
+        PlaybackControl control = new PlaybackControl(spotifyApi, playbackInfo, accountInfo,
+                new RequestBudget("benchmark", 30, 5), requestExecutor);
+        String deviceId = devices[0].getId();
+
+        try {
+            runner.run("playbackCommands", invocation -> {
+                switch (invocation % 3) {
+                    case 0:
+                        return control.setPlaybackVolume(invocation % 100).join();
+                    case 1:
+                        return control.startPlaylist(deviceId,
+                                playlists.get(invocation % playlists.size()).getName().toLowerCase()).join();
+                    default:
+                        return control.transferPlayback(devices[invocation % devices.length].getName()).join();
+                }
+            });
+        } finally {
+            requestExecutor.shutdown();
+        }
+    }
+
+    private static List<PlaylistSimplified> readPlaylists() throws IOException {
+        return Arrays.asList(new PlaylistSimplified.JsonUtil()
+                .createModelObjectPaging(readFixture("playlists.json")).getItems());
+    }
+
+    private static List<StateOption> createOptions(List<PlaylistSimplified> playlists) {
+        List<StateOption> options = new ArrayList<>(playlists.size());
+        for (PlaylistSimplified playlist : playlists) {
+            options.add(new StateOption(playlist.getName(), playlist.getName()));
+        }
+        return options;
+    }
+
+    private static PlaylistSimplified copy(PlaylistSimplified playlist, String name, String snapshotId) {
+        return new PlaylistSimplified.Builder().setId(playlist.getId()).setName(name).setSnapshotId(snapshotId)
+                .setUri(playlist.getUri()).build();
+    }
+
+    private static String readFixture(String name) throws IOException {
+        try (InputStream input = SpotifyBenchmark.class.getResourceAsStream(FIXTURES + name)) {
+            if (input == null) {
+                throw new IOException("Fixture not found: " + FIXTURES + name);
+            }
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            return new String(content.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Answers every request right away with an empty body, like the 204 answers of the player endpoints.
+     */
+    private static class NoContentHttpManager implements IHttpManager {
+
+        @Override
+        public String get(URI uri, Header[] headers) {
+            return "";
+        }
+
+        @Override
+        public String post(URI uri, Header[] headers, HttpEntity body) {
+            return "";
+        }
+
+        @Override
+        public String put(URI uri, Header[] headers, HttpEntity body) {
+            return "";
+        }
+
+        @Override
+        public String delete(URI uri, Header[] headers, HttpEntity body) {
+            return "";
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import org.junit.Test;
+
+/**
+ * Runs the {@link SpotifyBenchmark} with a few operations, so the benchmarks keep working with their fixtures.
+ *
+ * @author agent - Initial contribution
+ */
+public class SpotifyBenchmarkTest {
+
+    @Test
+    public void benchmarksRunOnTheFixtures() throws Exception {
+        SpotifyBenchmark.main(new String[] { "0", "1", "10" });
+    }
+
+}
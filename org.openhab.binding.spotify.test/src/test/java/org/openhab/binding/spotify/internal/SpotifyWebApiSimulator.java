@@ -0,0 +1,524 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * The {@link SpotifyWebApiSimulator} is a local stand-in for the Spotify Web API, used to load test the binding
+ * without the real service. It emulates the token, profile, player, devices and playlists endpoints used by the
+ * binding, with a configurable response latency, bursts of 429 answers with a Retry-After header, access tokens
+ * that expire (401) and any number of playlists.
+ * Point the <code>apiBaseUri</code> parameter of the things at {@link #getBaseUri()} and configure any refresh
+ * token; the simulator accepts every refresh token and authorization code. All the accounts share one player.
+ * It lives in the test fragment of the binding, so it is built with the tests but not packaged into the binding.
+ *
+ * @author agent - Initial contribution
+ */
+public class SpotifyWebApiSimulator {
+
+    private static final int SERVER_THREADS = 16;
+    private static final int MAX_PLAYLISTS_LIMIT = 50;
+    private static final int DEFAULT_PLAYLISTS_LIMIT = 20;
+    private static final int TRACK_COUNT = 20;
+    private static final int TRACK_DURATION_MS = 180000;
+
+    private final Logger logger = LoggerFactory.getLogger(SpotifyWebApiSimulator.class);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private volatile long latencyMs;
+    private volatile long latencyJitterMs;
+    private volatile int tooManyRequestsEvery;
+    private volatile int tooManyRequestsBurst = 1;
+    private volatile int retryAfterSeconds = 1;
+    private volatile int tokenLifetimeSeconds = 3600;
+    private volatile int playlistCount = 50;
+    private volatile int deviceCount = 3;
+
+    private final AtomicInteger tokenCounter = new AtomicInteger();
+    private final Map<String, Long> accessTokenExpiries = new ConcurrentHashMap<>();
+
+    private long requestCount;
+    private int remainingBurst;
+
+    private boolean playing = true;
+    private int trackIndex;
+    private int trackProgressMs;
+    private long trackProgressTimestamp = System.currentTimeMillis();
+    private int activeDevice;
+    private final Map<Integer, Integer> deviceVolumes = new HashMap<>();
+
+    public SpotifyWebApiSimulator(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.executor = Executors.newFixedThreadPool(SERVER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "spotify-web-api-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    /**
+     * Sets the delay added to every response, plus a random jitter of up to the given milliseconds.
+     */
+    public void setLatency(long latencyMs, long latencyJitterMs) {
+        this.latencyMs = latencyMs;
+        this.latencyJitterMs = latencyJitterMs;
+    }
+
+    /**
+     * Answers a burst of <code>burst</code> requests with 429 after every <code>every</code> requests.
+     * An interval of 0 disables the rate limiting.
+     */
+    public void setTooManyRequests(int every, int burst, int retryAfterSeconds) {
+        this.tooManyRequestsEvery = every;
+        this.tooManyRequestsBurst = burst;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Sets the lifetime of the access tokens issued from now on. Expired tokens are answered with 401.
+     */
+    public void setTokenLifetime(int tokenLifetimeSeconds) {
+        this.tokenLifetimeSeconds = tokenLifetimeSeconds;
+    }
+
+    public void setPlaylistCount(int playlistCount) {
+        this.playlistCount = playlistCount;
+    }
+
+    public void setDeviceCount(int deviceCount) {
+        this.deviceCount = deviceCount;
+    }
+
+    /**
+     * Makes every access token issued so far expire, so the next request of each account gets a 401.
+     */
+    public void expireAccessTokens() {
+        accessTokenExpiries.clear();
+    }
+
+    public String getBaseUri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void start() {
+        server.start();
+        logger.info("Spotify Web API simulator listening on {}", getBaseUri());
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            // Always read the whole body, so the client can reuse the connection
+            String body = readBody(exchange);
+            simulateLatency();
+            String path = exchange.getRequestURI().getPath();
+            if ("/api/token".equals(path)) {
+                handleToken(exchange, body);
+            } else if (!path.startsWith("/v1/")) {
+                sendError(exchange, 404, "Service not found");
+            } else if (isRateLimited()) {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+                sendError(exchange, 429, "API rate limit exceeded");
+            } else if (!isAuthorized(exchange)) {
+                sendError(exchange, 401, "The access token expired");
+            } else {
+                handleApi(exchange, path.substring("/v1".length()), body);
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Error handling simulated request '{}': {}", exchange.getRequestURI(), e.getMessage());
+            sendError(exchange, 500, "Server error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void simulateLatency() {
+        long delayMs = latencyMs + (latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMs) : 0);
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private synchronized boolean isRateLimited() {
+        requestCount++;
+        if (tooManyRequestsEvery > 0 && requestCount % tooManyRequestsEvery == 0) {
+            remainingBurst = tooManyRequestsBurst;
+        }
+        if (remainingBurst > 0) {
+            remainingBurst--;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isAuthorized(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return false;
+        }
+        Long expiresAt = accessTokenExpiries.get(authorization.substring("Bearer ".length()));
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    private void handleToken(HttpExchange exchange, String body) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+        Map<String, String> form = parseQuery(body);
+        String grantType = form.get("grant_type");
+
+        String accessToken = "simulated-access-" + tokenCounter.incrementAndGet();
+        int lifetime = tokenLifetimeSeconds;
+        accessTokenExpiries.put(accessToken, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(lifetime));
+
+        JsonObject token = new JsonObject();
+        token.addProperty("access_token", accessToken);
+        token.addProperty("token_type", "Bearer");
+        token.addProperty("scope", "user-read-playback-state user-modify-playback-state playlist-read-private");
+        token.addProperty("expires_in", lifetime);
+        if ("authorization_code".equals(grantType)) {
+            token.addProperty("refresh_token", "simulated-refresh-" + tokenCounter.incrementAndGet());
+        } else if (!"refresh_token".equals(grantType)) {
+            JsonObject error = new JsonObject();
+            error.addProperty("error", "unsupported_grant_type");
+            error.addProperty("error_description", "grant_type must be authorization_code or refresh_token");
+            sendJson(exchange, 400, error);
+            return;
+        }
+        sendJson(exchange, 200, token);
+    }
+
+    private void handleApi(HttpExchange exchange, String path, String body) throws IOException {
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        switch (method + " " + path) {
+            case "GET /me":
+                sendJson(exchange, 200, user());
+                break;
+            case "GET /me/playlists":
+                sendJson(exchange, 200, playlists(query));
+                break;
+            case "GET /me/player/devices":
+                JsonObject devices = new JsonObject();
+                synchronized (this) {
+                    devices.add("devices", devices());
+                }
+                sendJson(exchange, 200, devices);
+                break;
+            case "GET /me/player":
+            case "GET /me/player/currently-playing":
+                sendJson(exchange, 200, currentPlayback());
+                break;
+            case "PUT /me/player":
+                transferPlayback(parseJson(body));
+                sendNoContent(exchange);
+                break;
+            case "PUT /me/player/play":
+                setPlaying(true);
+                sendNoContent(exchange);
+                break;
+            case "PUT /me/player/pause":
+                setPlaying(false);
+                sendNoContent(exchange);
+                break;
+            case "POST /me/player/next":
+                skipTrack(1);
+                sendNoContent(exchange);
+                break;
+            case "POST /me/player/previous":
+                skipTrack(-1);
+                sendNoContent(exchange);
+                break;
+            case "PUT /me/player/volume":
+                setVolume(Integer.parseInt(query.getOrDefault("volume_percent", "0")));
+                sendNoContent(exchange);
+                break;
+            case "PUT /me/player/seek":
+                seek(Integer.parseInt(query.getOrDefault("position_ms", "0")));
+                sendNoContent(exchange);
+                break;
+            default:
+                sendError(exchange, 404, "Service not found");
+                break;
+        }
+    }
+
+    private JsonObject user() {
+        JsonObject user = new JsonObject();
+        user.addProperty("id", "simulator");
+        user.addProperty("display_name", "Simulated User");
+        user.addProperty("type", "user");
+        user.addProperty("uri", "spotify:user:simulator");
+        return user;
+    }
+
+    private JsonObject playlists(Map<String, String> query) {
+        int total = playlistCount;
+        int limit = Math.max(1, Math.min(MAX_PLAYLISTS_LIMIT,
+                Integer.parseInt(query.getOrDefault("limit", String.valueOf(DEFAULT_PLAYLISTS_LIMIT)))));
+        int offset = Math.max(0, Integer.parseInt(query.getOrDefault("offset", "0")));
+
+        JsonArray items = new JsonArray();
+        for (int i = offset; i < Math.min(total, offset + limit); i++) {
+            JsonObject owner = new JsonObject();
+            owner.addProperty("id", "simulator");
+            owner.addProperty("type", "user");
+            JsonObject tracks = new JsonObject();
+            tracks.addProperty("total", TRACK_COUNT);
+            JsonObject playlist = new JsonObject();
+            playlist.addProperty("collaborative", false);
+            playlist.addProperty("id", "playlist" + i);
+            playlist.add("images", new JsonArray());
+            playlist.addProperty("name", "Playlist " + i);
+            playlist.add("owner", owner);
+            playlist.addProperty("public", false);
+            playlist.addProperty("snapshot_id", "snapshot" + i);
+            playlist.add("tracks", tracks);
+            playlist.addProperty("type", "playlist");
+            playlist.addProperty("uri", "spotify:user:simulator:playlist:playlist" + i);
+            items.add(playlist);
+        }
+
+        String href = getBaseUri() + "/v1/me/playlists";
+        JsonObject paging = new JsonObject();
+        paging.addProperty("href", href + "?offset=" + offset + "&limit=" + limit);
+        paging.add("items", items);
+        paging.addProperty("limit", limit);
+        paging.addProperty("next", offset + limit < total ? href + "?offset=" + (offset + limit) + "&limit=" + limit
+                : null);
+        paging.addProperty("offset", offset);
+        paging.addProperty("previous", offset > 0 ? href + "?offset=" + Math.max(0, offset - limit) + "&limit="
+                + limit : null);
+        paging.addProperty("total", total);
+        return paging;
+    }
+
+    private JsonArray devices() {
+        JsonArray devices = new JsonArray();
+        for (int i = 0; i < deviceCount; i++) {
+            devices.add(device(i));
+        }
+        return devices;
+    }
+
+    private JsonObject device(int index) {
+        JsonObject device = new JsonObject();
+        device.addProperty("id", "device" + index);
+        device.addProperty("is_active", index == activeDevice);
+        device.addProperty("is_restricted", false);
+        device.addProperty("name", "Device " + index);
+        device.addProperty("type", "Speaker");
+        device.addProperty("volume_percent", deviceVolumes.getOrDefault(index, 50));
+        return device;
+    }
+
+    private synchronized JsonObject currentPlayback() {
+        advanceProgress();
+
+        JsonObject artist = new JsonObject();
+        artist.addProperty("name", "Artist " + trackIndex);
+        JsonArray artists = new JsonArray();
+        artists.add(artist);
+        JsonObject album = new JsonObject();
+        album.addProperty("name", "Album " + trackIndex);
+        JsonObject item = new JsonObject();
+        item.add("album", album);
+        item.add("artists", artists);
+        item.addProperty("duration_ms", TRACK_DURATION_MS);
+        item.addProperty("id", "track" + trackIndex);
+        item.addProperty("name", "Track " + trackIndex);
+        item.addProperty("type", "track");
+        item.addProperty("uri", "spotify:track:track" + trackIndex);
+
+        JsonObject playback = new JsonObject();
+        playback.add("device", device(activeDevice));
+        playback.addProperty("repeat_state", "off");
+        playback.addProperty("shuffle_state", false);
+        playback.addProperty("timestamp", trackProgressTimestamp);
+        playback.addProperty("progress_ms", trackProgressMs);
+        playback.addProperty("is_playing", playing);
+        playback.add("item", item);
+        return playback;
+    }
+
+    /**
+     * Moves the track progress forward to now, continuing with the next tracks while playing.
+     */
+    private void advanceProgress() {
+        long now = System.currentTimeMillis();
+        if (playing) {
+            long progressMs = trackProgressMs + now - trackProgressTimestamp;
+            trackIndex = (int) ((trackIndex + progressMs / TRACK_DURATION_MS) % TRACK_COUNT);
+            trackProgressMs = (int) (progressMs % TRACK_DURATION_MS);
+        }
+        trackProgressTimestamp = now;
+    }
+
+    private synchronized void transferPlayback(JsonObject body) {
+        if (body == null || !body.has("device_ids")) {
+            return;
+        }
+        JsonArray deviceIds = body.getAsJsonArray("device_ids");
+        for (int i = 0; deviceIds.size() > 0 && i < deviceCount; i++) {
+            if (("device" + i).equals(deviceIds.get(0).getAsString())) {
+                activeDevice = i;
+            }
+        }
+    }
+
+    private synchronized void setPlaying(boolean playing) {
+        advanceProgress();
+        this.playing = playing;
+    }
+
+    private synchronized void skipTrack(int offset) {
+        advanceProgress();
+        trackIndex = (trackIndex + offset + TRACK_COUNT) % TRACK_COUNT;
+        trackProgressMs = 0;
+    }
+
+    private synchronized void setVolume(int volume) {
+        deviceVolumes.put(activeDevice, Math.max(0, Math.min(100, volume)));
+    }
+
+    private synchronized void seek(int positionMs) {
+        advanceProgress();
+        trackProgressMs = Math.max(0, Math.min(TRACK_DURATION_MS - 1, positionMs));
+    }
+
+    private String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private JsonObject parseJson(String body) {
+        if (body.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            JsonElement json = new JsonParser().parse(body);
+            return json.isJsonObject() ? json.getAsJsonObject() : null;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    private Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JsonObject error = new JsonObject();
+        error.addProperty("status", status);
+        error.addProperty("message", message);
+        JsonObject body = new JsonObject();
+        body.add("error", error);
+        sendJson(exchange, status, body);
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonObject json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void sendNoContent(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    /**
+     * Starts a standalone simulator. The arguments are <code>key=value</code> pairs: port, latency, jitter,
+     * playlists, devices, tokenLifetime, tooManyRequestsEvery, tooManyRequestsBurst and retryAfter.
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, Integer> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length == 2) {
+                options.put(option[0], Integer.valueOf(option[1]));
+            }
+        }
+
+        SpotifyWebApiSimulator simulator = new SpotifyWebApiSimulator(options.getOrDefault("port", 8888));
+        simulator.setLatency(options.getOrDefault("latency", 0), options.getOrDefault("jitter", 0));
+        simulator.setPlaylistCount(options.getOrDefault("playlists", 50));
+        simulator.setDeviceCount(options.getOrDefault("devices", 3));
+        simulator.setTokenLifetime(options.getOrDefault("tokenLifetime", 3600));
+        simulator.setTooManyRequests(options.getOrDefault("tooManyRequestsEvery", 0),
+                options.getOrDefault("tooManyRequestsBurst", 1), options.getOrDefault("retryAfter", 1));
+        simulator.start();
+    }
+
+}
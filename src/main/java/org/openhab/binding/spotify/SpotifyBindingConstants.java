@@ -28,6 +28,8 @@ public class SpotifyBindingConstants {
 
     // List of all Thing Type UIDs
     public static final ThingTypeUID THING_TYPE_SPOTIFY = new ThingTypeUID(BINDING_ID, "spotify");
+    public static final ThingTypeUID THING_TYPE_ACCOUNT = new ThingTypeUID(BINDING_ID, "account");
+    public static final ThingTypeUID THING_TYPE_DEVICE = new ThingTypeUID(BINDING_ID, "device");
 
     // List of all Thing parameters
     public static final String CLIENT_ID_PARAMETER = "clientId";
@@ -36,9 +38,19 @@ public class SpotifyBindingConstants {
     public static final String REDIRECT_URI_PORT_PARAMETER = "redirectUriPort";
     public static final String REDIRECT_URI_RESOURCE_PARAMETER = "redirectUriResource";
     public static final String PLAYBACK_REFRESH_INTERVAL_PARAMETER = "playbackRefreshInterval";
+    public static final String PLAYBACK_IDLE_REFRESH_INTERVAL_PARAMETER = "playbackIdleRefreshInterval";
+    public static final String PROGRESS_REFRESH_INTERVAL_PARAMETER = "progressRefreshInterval";
+    public static final String OPTIMISTIC_UPDATES_PARAMETER = "optimisticUpdates";
     public static final String DEVICES_REFRESH_INTERVAL_PARAMETER = "devicesRefreshInterval";
     public static final String PLAYLISTS_REFRESH_INTERVAL_PARAMETER = "playlistsRefreshInterval";
+    public static final String API_BASE_URI_PARAMETER = "apiBaseUri";
+    public static final String REQUEST_DEADLINE_PARAMETER = "requestDeadline";
+    public static final String ENDPOINT_DEADLINES_PARAMETER = "endpointDeadlines";
+    public static final String HEDGE_PERCENTILE_PARAMETER = "hedgePercentile";
     public static final String REFRESH_TOKEN_PARAMETER = "refreshToken";
+    public static final String ACCESS_TOKEN_PARAMETER = "accessToken";
+    public static final String ACCESS_TOKEN_EXPIRY_PARAMETER = "accessTokenExpiry";
+    public static final String DEVICE_NAME_PARAMETER = "deviceName";
 
     // List of all Channel ids
     public static final String CHANNEL_PLAYER_CONTROL = "playerControl";
@@ -50,4 +62,9 @@ public class SpotifyBindingConstants {
     public static final String CHANNEL_USER_PLAYLISTS = "userPlaylists";
     public static final String CHANNEL_DEVICE_NAME = "deviceName";
     public static final String CHANNEL_DEVICE_VOLUME = "deviceVolume";
+    public static final String CHANNEL_DEVICE_ACTIVE = "deviceActive";
+    public static final String CHANNEL_API_REQUESTS = "apiRequests";
+    public static final String CHANNEL_API_ERRORS = "apiErrors";
+    public static final String CHANNEL_API_LATENCY = "apiLatency";
+    public static final String CHANNEL_API_METRICS = "apiMetrics";
 }
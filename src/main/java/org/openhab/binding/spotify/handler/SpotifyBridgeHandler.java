@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.handler;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.thing.Bridge;
+import org.eclipse.smarthome.core.thing.Thing;
+import org.eclipse.smarthome.core.thing.ThingStatus;
+import org.eclipse.smarthome.core.thing.ThingUID;
+import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
+import org.eclipse.smarthome.core.thing.binding.BridgeHandler;
+import org.eclipse.smarthome.core.thing.binding.ThingHandler;
+import org.eclipse.smarthome.core.types.StateOption;
+import org.openhab.binding.spotify.internal.PlaybackSnapshot;
+import org.openhab.binding.spotify.internal.SpotifyHttpTransport;
+import org.openhab.binding.spotify.internal.SpotifyRequestExecutor;
+import org.openhab.binding.spotify.internal.SpotifyRequestGovernor;
+import org.openhab.binding.spotify.internal.SpotifyStateDescriptionOptionsProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wrapper.spotify.model_objects.miscellaneous.Device;
+
+/**
+ * The {@link SpotifyBridgeHandler} is the handler of a Spotify account bridge. It does everything the
+ * {@link SpotifyHandler} does for an account (tokens, devices, playlists and the playback polling) once, and fans
+ * the results of the polls out to the {@link SpotifyDeviceHandler}s of its devices, so the API traffic of an
+ * account does not grow with the number of controlled devices.
+ * It shares the account logic of the {@link SpotifyHandler} by extending it, so it cannot extend
+ * {@link BaseBridgeHandler}; it implements the {@link BridgeHandler} contract the same way instead: its thing is a
+ * {@link Bridge}, and the child handler callbacks only act on the {@link SpotifyDeviceHandler}s.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SpotifyBridgeHandler extends SpotifyHandler implements BridgeHandler {
+
+    private final Logger logger = LoggerFactory.getLogger(SpotifyBridgeHandler.class);
+
+    private final Map<ThingUID, SpotifyDeviceHandler> deviceHandlers = new ConcurrentHashMap<>();
+
+    public SpotifyBridgeHandler(Bridge bridge, SpotifyStateDescriptionOptionsProvider provider,
+            SpotifyRequestGovernor requestGovernor, SpotifyRequestExecutor requestExecutor,
+            SpotifyHttpTransport httpTransport) {
+        super(bridge, provider, requestGovernor, requestExecutor, httpTransport);
+    }
+
+    @Override
+    public Bridge getThing() {
+        return (Bridge) super.getThing();
+    }
+
+    /**
+     * Registers the handler of a device of the account once it is initialized. Other child handlers are ignored.
+     */
+    @Override
+    public void childHandlerInitialized(ThingHandler childHandler, Thing childThing) {
+        if (childHandler instanceof SpotifyDeviceHandler) {
+            deviceHandlerInitialized((SpotifyDeviceHandler) childHandler, childThing.getUID());
+        }
+    }
+
+    /**
+     * Unregisters the handler of a device of the account once it is disposed. Other child handlers are ignored.
+     */
+    @Override
+    public void childHandlerDisposed(ThingHandler childHandler, Thing childThing) {
+        if (childHandler instanceof SpotifyDeviceHandler) {
+            deviceHandlerDisposed(childThing.getUID());
+        }
+    }
+
+    private void deviceHandlerInitialized(SpotifyDeviceHandler deviceHandler, ThingUID deviceUID) {
+        logger.debug("Device '{}' added to the account", deviceUID);
+        deviceHandlers.put(deviceUID, deviceHandler);
+        refreshDeviceHandler(deviceHandler);
+        if (getThing().getStatus().equals(ThingStatus.ONLINE)) {
+            updatePollingJobs(0);
+        }
+    }
+
+    private void deviceHandlerDisposed(ThingUID deviceUID) {
+        if (deviceHandlers.remove(deviceUID) != null) {
+            logger.debug("Device '{}' removed from the account", deviceUID);
+            if (getThing().getStatus().equals(ThingStatus.ONLINE)) {
+                updatePollingJobs(0);
+            }
+        }
+    }
+
+    /**
+     * Pushes the cached account information to a device handler, e.g. when it is initialized or its bridge comes
+     * online. It runs on the event loop of the account, like the poll results, so a device handler is only ever
+     * updated from one thread.
+     */
+    void refreshDeviceHandler(SpotifyDeviceHandler deviceHandler) {
+        getEventLoop().execute(() -> pushAccountState(deviceHandler));
+    }
+
+    private void pushAccountState(SpotifyDeviceHandler deviceHandler) {
+        deviceHandler.updatePlaylistOptions(getPlaylistOptions());
+        if (!getThing().getStatus().equals(ThingStatus.ONLINE)) {
+            return;
+        }
+        deviceHandler.updateDevices(getAccountInfo().getAvailableDevices().values());
+        PlaybackSnapshot snapshot = getPlaybackInfo().getSnapshot();
+        String activeDeviceName = snapshot.getDeviceName();
+        deviceHandler.updatePlayback(snapshot,
+                activeDeviceName != null ? getAccountInfo().getAvailableDevices().get(activeDeviceName) : null);
+    }
+
+    @Override
+    protected boolean isPlaybackConsumed() {
+        return super.isPlaybackConsumed() || !deviceHandlers.isEmpty();
+    }
+
+    @Override
+    protected boolean isDevicesConsumed() {
+        return super.isDevicesConsumed() || !deviceHandlers.isEmpty();
+    }
+
+    @Override
+    protected boolean isPlaylistsConsumed() {
+        return super.isPlaylistsConsumed() || !deviceHandlers.isEmpty();
+    }
+
+    @Override
+    protected void playbackUpdated(PlaybackSnapshot snapshot, @Nullable Device activeDevice) {
+        for (SpotifyDeviceHandler deviceHandler : deviceHandlers.values()) {
+            deviceHandler.updatePlayback(snapshot, activeDevice);
+        }
+    }
+
+    @Override
+    protected void devicesUpdated(Device[] devices) {
+        List<Device> deviceList = Arrays.asList(devices);
+        for (SpotifyDeviceHandler deviceHandler : deviceHandlers.values()) {
+            deviceHandler.updateDevices(deviceList);
+        }
+    }
+
+    @Override
+    protected void playlistsUpdated(List<StateOption> options) {
+        for (SpotifyDeviceHandler deviceHandler : deviceHandlers.values()) {
+            deviceHandler.updatePlaylistOptions(options);
+        }
+    }
+
+}
@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.handler;
+
+import static org.openhab.binding.spotify.SpotifyBindingConstants.*;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.library.types.NextPreviousType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.library.types.PlayPauseType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.thing.Bridge;
+import org.eclipse.smarthome.core.thing.ChannelUID;
+import org.eclipse.smarthome.core.thing.Thing;
+import org.eclipse.smarthome.core.thing.ThingStatus;
+import org.eclipse.smarthome.core.thing.ThingStatusDetail;
+import org.eclipse.smarthome.core.thing.ThingStatusInfo;
+import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
+import org.eclipse.smarthome.core.thing.binding.ThingHandler;
+import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.RefreshType;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.StateOption;
+import org.eclipse.smarthome.core.types.UnDefType;
+import org.openhab.binding.spotify.internal.NameIndex;
+import org.openhab.binding.spotify.internal.PlaybackCommandQueue;
+import org.openhab.binding.spotify.internal.PlaybackCommandQueue.Refresh;
+import org.openhab.binding.spotify.internal.PlaybackControl;
+import org.openhab.binding.spotify.internal.PlaybackSnapshot;
+import org.openhab.binding.spotify.internal.SpotifyStateDescriptionOptionsProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wrapper.spotify.model_objects.miscellaneous.Device;
+
+/**
+ * The {@link SpotifyDeviceHandler} controls one device of a Spotify account. It does not send any poll: its
+ * state is pushed by the {@link SpotifyBridgeHandler} of the account from the shared devices and playback polls,
+ * and its commands are sent through the command queue of the bridge, targeting this device.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SpotifyDeviceHandler extends BaseThingHandler {
+
+    private final Logger logger = LoggerFactory.getLogger(SpotifyDeviceHandler.class);
+
+    private final SpotifyStateDescriptionOptionsProvider stateDescriptionProvider;
+
+    private String configuredDeviceName = "";
+    @Nullable
+    private volatile Device device;
+    private volatile boolean active;
+    /** Whether the deviceActive channel was set since the thing went online, even if the device never was. */
+    private volatile boolean activePublished;
+
+    public SpotifyDeviceHandler(Thing thing, SpotifyStateDescriptionOptionsProvider provider) {
+        super(thing);
+        this.stateDescriptionProvider = provider;
+    }
+
+    @Override
+    public void initialize() {
+        Object deviceName = getThing().getConfiguration().get(DEVICE_NAME_PARAMETER);
+        configuredDeviceName = deviceName != null ? deviceName.toString().trim() : "";
+        device = null;
+        active = false;
+        activePublished = false;
+
+        if (configuredDeviceName.isEmpty()) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, "The device name is missing");
+            return;
+        }
+        SpotifyBridgeHandler bridgeHandler = getBridgeHandler();
+        if (bridgeHandler == null) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_UNINITIALIZED);
+            return;
+        }
+        if (!bridgeHandler.getThing().getStatus().equals(ThingStatus.ONLINE)) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_OFFLINE);
+            return;
+        }
+        // The bridge pushes the device state once it registers this handler
+        updateStatus(ThingStatus.UNKNOWN);
+    }
+
+    @Override
+    public void bridgeStatusChanged(ThingStatusInfo bridgeStatusInfo) {
+        if (configuredDeviceName.isEmpty()) {
+            return;
+        }
+        SpotifyBridgeHandler bridgeHandler = getBridgeHandler();
+        if (bridgeHandler != null && bridgeStatusInfo.getStatus().equals(ThingStatus.ONLINE)) {
+            updateStatus(ThingStatus.UNKNOWN);
+            activePublished = false;
+            bridgeHandler.refreshDeviceHandler(this);
+        } else {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_OFFLINE);
+        }
+    }
+
+    @Override
+    public void handleCommand(ChannelUID channelUID, Command command) {
+        if (command.equals(RefreshType.REFRESH)) {
+            return;
+        }
+
+        SpotifyBridgeHandler bridgeHandler = getBridgeHandler();
+        PlaybackControl control = bridgeHandler != null ? bridgeHandler.getPlaybackControl() : null;
+        PlaybackCommandQueue queue = bridgeHandler != null ? bridgeHandler.getCommandQueue() : null;
+        Device currentDevice = device;
+        if (control == null || queue == null || currentDevice == null
+                || !getThing().getStatus().equals(ThingStatus.ONLINE)) {
+            logger.warn("Device '{}' is not available, command '{}' discarded", configuredDeviceName, command);
+            return;
+        }
+
+        String deviceId = currentDevice.getId();
+        String deviceName = currentDevice.getName();
+        // Commands of different devices must not replace each other in the bridge queue
+        String queueKey = getThing().getUID() + ":" + channelUID.getId();
+
+        switch (channelUID.getId()) {
+            case CHANNEL_PLAYER_CONTROL:
+                if (command.equals(PlayPauseType.PLAY)) {
+                    if (active) {
+                        queue.coalesce(queueKey, () -> control.playTrack(deviceId), Refresh.PLAYBACK);
+                    } else {
+                        queue.coalesce(queueKey, () -> control.transferPlayback(deviceName), Refresh.PLAYBACK,
+                                Refresh.DEVICES);
+                    }
+                } else if (command.equals(PlayPauseType.PAUSE)) {
+                    if (active) {
+                        queue.coalesce(queueKey, () -> control.pauseTrack(deviceId), Refresh.PLAYBACK);
+                    }
+                } else if (command.equals(NextPreviousType.NEXT)) {
+                    queue.enqueue(() -> control.nextTrack(deviceId), Refresh.PLAYBACK);
+                } else if (command.equals(NextPreviousType.PREVIOUS)) {
+                    queue.enqueue(() -> control.previousTrack(deviceId), Refresh.PLAYBACK);
+                }
+                break;
+            case CHANNEL_DEVICE_VOLUME:
+                if (command instanceof PercentType) {
+                    int volume = ((PercentType) command).intValue();
+                    queue.coalesce(queueKey, () -> control.setPlaybackVolume(deviceId, volume), Refresh.PLAYBACK,
+                            Refresh.DEVICES);
+                }
+                break;
+            case CHANNEL_USER_PLAYLISTS:
+                if (command instanceof StringType) {
+                    String playlistName = command.toString();
+                    queue.coalesce(queueKey, () -> control.startPlaylist(deviceId, playlistName), Refresh.PLAYBACK,
+                            Refresh.DEVICES);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Looks for this device in the devices of the account and updates its availability and volume.
+     */
+    void updateDevices(Collection<Device> devices) {
+        NameIndex<Device> devicesIndex = new NameIndex<>();
+        for (Device availableDevice : devices) {
+            devicesIndex.put(availableDevice.getId(), availableDevice.getName(), availableDevice);
+        }
+        Device matchingDevice = devicesIndex.find(configuredDeviceName);
+        device = matchingDevice;
+
+        if (matchingDevice == null) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
+                    String.format("Device '%s' is not available", configuredDeviceName));
+            return;
+        }
+
+        updateStatus(ThingStatus.ONLINE);
+        if (matchingDevice.getVolume_percent() != null) {
+            setChannelValue(CHANNEL_DEVICE_VOLUME, new PercentType(matchingDevice.getVolume_percent()));
+        }
+    }
+
+    /**
+     * Updates the playback channels from the account playback. Only the active device shows the current track.
+     */
+    void updatePlayback(PlaybackSnapshot snapshot, @Nullable Device activeDevice) {
+        Device currentDevice = device;
+        boolean isActive = currentDevice != null && activeDevice != null
+                && currentDevice.getId().equals(activeDevice.getId());
+        boolean wasActive = active;
+        active = isActive;
+
+        if (isActive != wasActive || !activePublished) {
+            setChannelValue(CHANNEL_DEVICE_ACTIVE, isActive ? OnOffType.ON : OnOffType.OFF);
+            activePublished = getThing().getStatus().equals(ThingStatus.ONLINE);
+        }
+        if (!isActive) {
+            if (wasActive) {
+                setChannelValue(CHANNEL_PLAYER_CONTROL, PlayPauseType.PAUSE);
+                setChannelValue(CHANNEL_TRACK_TITLE, UnDefType.UNDEF);
+                setChannelValue(CHANNEL_TRACK_ARTIST, UnDefType.UNDEF);
+                setChannelValue(CHANNEL_TRACK_ALBUM, UnDefType.UNDEF);
+            }
+            return;
+        }
+
+        setChannelValue(CHANNEL_PLAYER_CONTROL,
+                Boolean.TRUE.equals(snapshot.isPlaying()) ? PlayPauseType.PLAY : PlayPauseType.PAUSE);
+        setChannelValue(CHANNEL_TRACK_TITLE, toState(snapshot.getTrackTitle()));
+        setChannelValue(CHANNEL_TRACK_ARTIST, toState(snapshot.getTrackArtist()));
+        setChannelValue(CHANNEL_TRACK_ALBUM, toState(snapshot.getTrackAlbum()));
+        if (snapshot.getDeviceVolume() != null) {
+            setChannelValue(CHANNEL_DEVICE_VOLUME, new PercentType(snapshot.getDeviceVolume()));
+        }
+    }
+
+    void updatePlaylistOptions(List<StateOption> options) {
+        stateDescriptionProvider.setStateOptions(new ChannelUID(getThing().getUID(), CHANNEL_USER_PLAYLISTS),
+                options);
+    }
+
+    private State toState(@Nullable String value) {
+        return value != null ? new StringType(value) : UnDefType.UNDEF;
+    }
+
+    private void setChannelValue(String channelName, State state) {
+        if (getThing().getStatus().equals(ThingStatus.ONLINE) && isLinked(channelName)) {
+            updateState(channelName, state);
+        }
+    }
+
+    @Nullable
+    private SpotifyBridgeHandler getBridgeHandler() {
+        Bridge bridge = getBridge();
+        if (bridge == null) {
+            return null;
+        }
+        ThingHandler handler = bridge.getHandler();
+        return handler instanceof SpotifyBridgeHandler ? (SpotifyBridgeHandler) handler : null;
+    }
+
+}
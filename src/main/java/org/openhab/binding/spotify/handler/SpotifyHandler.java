@@ -15,20 +15,25 @@ package org.openhab.binding.spotify.handler;
 import static org.openhab.binding.spotify.SpotifyBindingConstants.*;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.smarthome.config.core.Configuration;
+import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.NextPreviousType;
 import org.eclipse.smarthome.core.library.types.PercentType;
 import org.eclipse.smarthome.core.library.types.PlayPauseType;
@@ -43,32 +48,52 @@ import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.RefreshType;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.StateOption;
+import org.openhab.binding.spotify.internal.AccessTokenListener;
+import org.openhab.binding.spotify.internal.AccountEventLoop;
 import org.openhab.binding.spotify.internal.AccountInformationCache;
+import org.openhab.binding.spotify.internal.AccountStateStore;
 import org.openhab.binding.spotify.internal.AuthorizationCodeListener;
+import org.openhab.binding.spotify.internal.BaseUriHttpManager;
+import org.openhab.binding.spotify.internal.CircuitBreaker;
+import org.openhab.binding.spotify.internal.CircuitOpenException;
+import org.openhab.binding.spotify.internal.OptimisticStateTracker;
+import org.openhab.binding.spotify.internal.OptimisticStateTracker.Field;
+import org.openhab.binding.spotify.internal.ConditionalRequestHttpManager;
+import org.openhab.binding.spotify.internal.CurrentPlaybackDecoder;
+import org.openhab.binding.spotify.internal.CurrentPlaybackDecoder.CurrentPlayback;
+import org.openhab.binding.spotify.internal.HedgingHttpManager;
+import org.openhab.binding.spotify.internal.PlaybackCommandQueue;
+import org.openhab.binding.spotify.internal.PlaybackCommandQueue.Refresh;
 import org.openhab.binding.spotify.internal.PlaybackControl;
 import org.openhab.binding.spotify.internal.PlaybackInformationCache;
+import org.openhab.binding.spotify.internal.PlaybackPollingScheduler;
+import org.openhab.binding.spotify.internal.PlaybackSnapshot;
+import org.openhab.binding.spotify.internal.PlaylistSynchronizer;
+import org.openhab.binding.spotify.internal.PollingWatchdog;
+import org.openhab.binding.spotify.internal.RequestBudget;
+import org.openhab.binding.spotify.internal.RequestBudgetExhaustedException;
+import org.openhab.binding.spotify.internal.RequestDeadlines;
+import org.openhab.binding.spotify.internal.RequestPriority;
+import org.openhab.binding.spotify.internal.SpotifyApiMetrics;
 import org.openhab.binding.spotify.internal.SpotifyConfiguration;
+import org.openhab.binding.spotify.internal.SpotifyHttpTransport;
+import org.openhab.binding.spotify.internal.SpotifyRequestExecutor;
+import org.openhab.binding.spotify.internal.SpotifyRequestGovernor;
 import org.openhab.binding.spotify.internal.SpotifyStateDescriptionOptionsProvider;
+import org.openhab.binding.spotify.internal.SpotifyTokenManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.wrapper.spotify.IHttpManager;
 import com.wrapper.spotify.SpotifyApi;
 import com.wrapper.spotify.SpotifyHttpManager;
 import com.wrapper.spotify.exceptions.SpotifyWebApiException;
 import com.wrapper.spotify.model_objects.credentials.AuthorizationCodeCredentials;
-import com.wrapper.spotify.model_objects.miscellaneous.CurrentlyPlayingContext;
 import com.wrapper.spotify.model_objects.miscellaneous.Device;
-import com.wrapper.spotify.model_objects.specification.ArtistSimplified;
-import com.wrapper.spotify.model_objects.specification.Paging;
 import com.wrapper.spotify.model_objects.specification.PlaylistSimplified;
 import com.wrapper.spotify.model_objects.specification.User;
-import com.wrapper.spotify.requests.authorization.authorization_code.AuthorizationCodeRefreshRequest;
-import com.wrapper.spotify.requests.authorization.authorization_code.AuthorizationCodeRequest;
+import com.wrapper.spotify.requests.IRequest;
 import com.wrapper.spotify.requests.authorization.authorization_code.AuthorizationCodeUriRequest;
-import com.wrapper.spotify.requests.data.player.GetInformationAboutUsersCurrentPlaybackRequest;
-import com.wrapper.spotify.requests.data.player.GetUsersAvailableDevicesRequest;
-import com.wrapper.spotify.requests.data.playlists.GetListOfCurrentUsersPlaylistsRequest;
-import com.wrapper.spotify.requests.data.users_profile.GetCurrentUsersProfileRequest;
 
 /**
  * The {@link SpotifyHandler} is responsible for handling commands, which are
@@ -77,32 +102,77 @@ import com.wrapper.spotify.requests.data.users_profile.GetCurrentUsersProfileReq
  * @author Aitor Iturrioz - Initial contribution
  */
 @NonNullByDefault
-public class SpotifyHandler extends BaseThingHandler implements AuthorizationCodeListener {
+public class SpotifyHandler extends BaseThingHandler implements AuthorizationCodeListener, AccessTokenListener {
 
     private final Logger logger = LoggerFactory.getLogger(SpotifyHandler.class);
 
     private final String STATE = "x4xkmn9pu3j6ukrs8n";
     private final String SCOPE = "user-read-playback-state,user-modify-playback-state,playlist-read-private";
-    private final int TOKEN_REFRESH_ANTICIPATION = 60;
+    private static final int API_METRICS_REFRESH_INTERVAL = 30;
+    private static final int WATCHDOG_INTERVAL = 30;
+    private static final int DEFAULT_REQUEST_DEADLINE = 15000;
+    private static final String PLAYBACK_JOB = "playback";
+    private static final String DEVICES_JOB = "devices";
+    private static final String PLAYLISTS_JOB = "playlists";
+
+    /** Channels fed by the playback polling. */
+    private static final Set<String> PLAYBACK_CHANNELS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList(CHANNEL_PLAYER_CONTROL, CHANNEL_TRACK_TITLE, CHANNEL_TRACK_ARTIST, CHANNEL_TRACK_ALBUM,
+                    CHANNEL_TRACK_DURATION, CHANNEL_TRACK_PROGRESS, CHANNEL_DEVICE_VOLUME)));
+    /** Channels fed by the devices polling. It also reports the active device while playback is not polled. */
+    private static final Set<String> DEVICES_CHANNELS = Collections.singleton(CHANNEL_DEVICE_NAME);
+    private static final Set<String> PLAYLISTS_CHANNELS = Collections.singleton(CHANNEL_USER_PLAYLISTS);
+    private static final Set<String> API_METRICS_CHANNELS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList(CHANNEL_API_REQUESTS, CHANNEL_API_ERRORS, CHANNEL_API_LATENCY, CHANNEL_API_METRICS)));
 
     private String refreshToken = "";
-    private boolean noInformationAvailable = false;
+    private String accessToken = "";
+    private long accessTokenExpiry;
+    private volatile boolean noInformationAvailable = false;
+    /** Whether the next playback poll follows a command, and so runs in the refresh lane. */
+    private volatile boolean playbackRefreshRequested = false;
 
     private String authorizationCode = "";
     private int playbackRefreshInterval;
+    private int playbackIdleRefreshInterval;
+    private int progressRefreshInterval;
+    private boolean optimisticUpdates;
+    private volatile int lastTrackProgressPercentage = -1;
     private int devicesRefreshInterval;
     private int playlistsRefreshInterval;
+    private long maxRequestDeadlineMs = DEFAULT_REQUEST_DEADLINE;
 
     private SpotifyStateDescriptionOptionsProvider stateDescriptionProvider;
+    private SpotifyRequestGovernor requestGovernor;
+    private SpotifyRequestExecutor requestExecutor;
+    private SpotifyHttpTransport httpTransport;
 
     @Nullable
     private SpotifyApi spotifyApi;
+    @Nullable
+    private RequestBudget requestBudget;
+    @Nullable
+    private SpotifyTokenManager tokenManager;
 
+    /** Single writer of the account state: poll results, optimistic updates and token events run on it. */
+    private AccountEventLoop eventLoop = new AccountEventLoop(scheduler);
     private PlaybackInformationCache playbackInfo = new PlaybackInformationCache();
     private AccountInformationCache accountInfo = new AccountInformationCache();
+    private PlaybackPollingScheduler playbackPollingScheduler = new PlaybackPollingScheduler(5, 60);
+    private OptimisticStateTracker optimisticState = new OptimisticStateTracker();
+    private final CurrentPlaybackDecoder playbackDecoder = new CurrentPlaybackDecoder();
+    private SpotifyApiMetrics apiMetrics = new SpotifyApiMetrics();
+    private PollingWatchdog pollingWatchdog = new PollingWatchdog();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker(() -> eventLoop.execute(this::updateDegradedStatus));
 
+    @Nullable
+    private volatile AccountStateStore accountStateStore;
     @Nullable
     private PlaybackControl playbackControl;
+    @Nullable
+    private PlaybackCommandQueue commandQueue;
+    @Nullable
+    private PlaylistSynchronizer playlistSynchronizer;
 
     @Nullable
     private SpotifyAuthorizationHandler spotifyAuthorizationHandler;
@@ -112,10 +182,21 @@ public class SpotifyHandler extends BaseThingHandler implements AuthorizationCod
     private ScheduledFuture<?> playbackInfoPollingJob;
     @Nullable
     private ScheduledFuture<?> usersPlaylistsPollingJob;
+    @Nullable
+    private ScheduledFuture<?> trackProgressUpdateJob;
+    @Nullable
+    private ScheduledFuture<?> apiMetricsUpdateJob;
+    @Nullable
+    private ScheduledFuture<?> watchdogJob;
 
-    public SpotifyHandler(Thing thing, SpotifyStateDescriptionOptionsProvider provider) {
+    public SpotifyHandler(Thing thing, SpotifyStateDescriptionOptionsProvider provider,
+            SpotifyRequestGovernor requestGovernor, SpotifyRequestExecutor requestExecutor,
+            SpotifyHttpTransport httpTransport) {
         super(thing);
         this.stateDescriptionProvider = provider;
+        this.requestGovernor = requestGovernor;
+        this.requestExecutor = requestExecutor;
+        this.httpTransport = httpTransport;
     }
 
     @Override
@@ -130,55 +211,110 @@ public class SpotifyHandler extends BaseThingHandler implements AuthorizationCod
             return;
         }
 
+        PlaybackControl control = playbackControl;
+        PlaybackCommandQueue queue = commandQueue;
+        if (control == null || queue == null) {
+            return;
+        }
+
         String channel = channelUID.getId();
 
         switch (channel) {
             case CHANNEL_DEVICE_VOLUME:
                 if (command instanceof PercentType) {
                     int volume = ((PercentType) command).intValue();
-                    playbackControl.setPlaybackVolume(volume);
+                    queue.coalesce(CHANNEL_DEVICE_VOLUME, optimistic(Field.DEVICE_VOLUME, volume, () -> {
+                        playbackInfo.setDeviceVolume(volume);
+                        setChannelValue(CHANNEL_DEVICE_VOLUME, new PercentType(volume));
+                    }, () -> control.setPlaybackVolume(volume)), Refresh.PLAYBACK);
                 }
-                playbackInfoPollingRunnable.run();
                 break;
             case CHANNEL_DEVICE_NAME:
                 if (command instanceof StringType) {
-                    String deviceName = ((StringType) command).toString();
-                    playbackControl.transferPlayback(deviceName);
+                    // Approximate names are shown as the device they resolve to
+                    Device device = accountInfo.findDevice(((StringType) command).toString());
+                    String deviceName = device != null ? device.getName() : ((StringType) command).toString();
+                    queue.coalesce(CHANNEL_DEVICE_NAME, optimistic(Field.DEVICE_NAME, deviceName, () -> {
+                        playbackInfo.setDeviceName(deviceName);
+                        setChannelValue(CHANNEL_DEVICE_NAME, new StringType(deviceName));
+                    }, () -> control.transferPlayback(deviceName)), Refresh.PLAYBACK, Refresh.DEVICES);
                 }
-                playbackInfoPollingRunnable.run();
-                devicesInfoPollingRunnable.run();
                 break;
             case CHANNEL_PLAYER_CONTROL:
                 if (command instanceof PlayPauseType) {
-                    if (command.equals(PlayPauseType.PLAY)) {
-                        playbackControl.playTrack();
-                    } else if (command.equals(PlayPauseType.PAUSE)) {
-                        playbackControl.pauseTrack();
-                    }
+                    boolean play = command.equals(PlayPauseType.PLAY);
+                    queue.coalesce(CHANNEL_PLAYER_CONTROL, optimistic(Field.IS_PLAYING, play, () -> {
+                        // Restart the local progress clock from the current position
+                        playbackInfo.setTrackProgressMs(playbackInfo.getInterpolatedTrackProgressMs());
+                        playbackInfo.setIsPlaying(play);
+                        setChannelValue(CHANNEL_PLAYER_CONTROL, (PlayPauseType) command);
+                    }, play ? control::playTrack : control::pauseTrack), Refresh.PLAYBACK);
                 } else if (command instanceof NextPreviousType) {
                     if (command.equals(NextPreviousType.NEXT)) {
-                        playbackControl.nextTrack();
+                        queue.enqueue(control::nextTrack, Refresh.PLAYBACK);
                     } else if (command.equals(NextPreviousType.PREVIOUS)) {
-                        playbackControl.previousTrack();
+                        queue.enqueue(control::previousTrack, Refresh.PLAYBACK);
                     }
                 }
-                playbackInfoPollingRunnable.run();
                 break;
             case CHANNEL_USER_PLAYLISTS:
                 if (command instanceof StringType) {
                     String playlistName = ((StringType) command).toString();
-                    playbackControl.startPlaylist(playlistName);
+                    queue.coalesce(CHANNEL_USER_PLAYLISTS, () -> control.startPlaylist(playlistName),
+                            Refresh.PLAYBACK, Refresh.PLAYLISTS);
                 }
-                playbackInfoPollingRunnable.run();
-                usersPlaylistsPollingRunnable.run();
+                break;
             case CHANNEL_TRACK_PROGRESS:
                 if (command instanceof PercentType) {
                     int newTrackPositionPercentage = ((PercentType) command).intValue();
-                    int newTrackPositionMs = newTrackPositionPercentage * (playbackInfo.getTrackDuration() / 100);
-                    playbackControl.seekToPosition(newTrackPositionMs);
-
+                    Integer trackDuration = playbackInfo.getTrackDuration();
+                    if (trackDuration != null) {
+                        int newTrackPositionMs = newTrackPositionPercentage * (trackDuration / 100);
+                        queue.coalesce(CHANNEL_TRACK_PROGRESS,
+                                optimistic(Field.TRACK_PROGRESS, newTrackPositionMs, () -> {
+                                    playbackInfo.setTrackProgressMs(newTrackPositionMs);
+                                    updateTrackProgressChannel();
+                                }, () -> control.seekToPosition(newTrackPositionMs)), Refresh.PLAYBACK);
+                    }
                 }
-                playbackInfoPollingRunnable.run();
+                break;
+        }
+    }
+
+    /**
+     * Applies the expected result of a command right away when optimistic updates are enabled, and returns the
+     * command to send. The optimistic value is rolled back if the command fails or the playback polls do not
+     * confirm it.
+     */
+    private Supplier<CompletableFuture<Void>> optimistic(Field field, Object expectedValue, Runnable update,
+            Supplier<CompletableFuture<Void>> command) {
+        if (!optimisticUpdates) {
+            return command;
+        }
+        // Posted before the command is queued, so the polls that follow the command see the expectation
+        eventLoop.execute(() -> {
+            optimisticState.expect(field, expectedValue);
+            update.run();
+        });
+        return () -> command.get().whenComplete((result, e) -> {
+            if (e != null) {
+                eventLoop.execute(() -> optimisticState.discard(field));
+            }
+        });
+    }
+
+    /**
+     * Runs the refreshes requested by a batch of player commands.
+     */
+    private void refreshAfterCommands(Set<Refresh> refreshes) {
+        if (refreshes.contains(Refresh.PLAYBACK)) {
+            refreshPlaybackInfo();
+        }
+        if (refreshes.contains(Refresh.DEVICES)) {
+            pollDevicesInfo(RequestPriority.REFRESH);
+        }
+        if (refreshes.contains(Refresh.PLAYLISTS)) {
+            pollUsersPlaylists(RequestPriority.REFRESH);
         }
     }
 
@@ -186,46 +322,75 @@ public class SpotifyHandler extends BaseThingHandler implements AuthorizationCod
     public void channelLinked(ChannelUID channelUID) {
         logger.debug("New channel '{}' linked", channelUID);
 
-        String channel = channelUID.getId();
+        eventLoop.execute(() -> updateChannelFromCache(channelUID.getId()));
+        if (getThing().getStatus().equals(ThingStatus.ONLINE)) {
+            updatePollingJobs(0);
+        }
+    }
+
+    @Override
+    public void channelUnlinked(ChannelUID channelUID) {
+        logger.debug("Channel '{}' unlinked", channelUID);
 
+        if (getThing().getStatus().equals(ThingStatus.ONLINE)) {
+            updatePollingJobs(0);
+        }
+    }
+
+    private void updateChannelsFromCache() {
+        for (Channel channel : getThing().getChannels()) {
+            updateChannelFromCache(channel.getUID().getId());
+        }
+    }
+
+    private void updateChannelFromCache(String channel) {
         switch (channel) {
             case CHANNEL_DEVICE_VOLUME:
                 Integer deviceVolume = playbackInfo.getDeviceVolume();
                 if (deviceVolume != null) {
                     setChannelValue(CHANNEL_DEVICE_VOLUME, new PercentType(deviceVolume));
                 }
+                break;
             case CHANNEL_DEVICE_NAME:
                 String deviceName = playbackInfo.getDeviceName();
                 if (deviceName != null) {
                     setChannelValue(CHANNEL_DEVICE_NAME, new StringType(deviceName));
                 }
+                break;
             case CHANNEL_PLAYER_CONTROL:
                 Boolean isPlaying = playbackInfo.isPlaying();
                 if (isPlaying != null) {
                     setChannelValue(CHANNEL_PLAYER_CONTROL, isPlaying ? PlayPauseType.PLAY : PlayPauseType.PAUSE);
                 }
+                break;
             case CHANNEL_TRACK_ARTIST:
                 String trackArtist = playbackInfo.getTrackArtist();
                 if (trackArtist != null) {
                     setChannelValue(CHANNEL_TRACK_ARTIST, new StringType(trackArtist));
                 }
+                break;
             case CHANNEL_TRACK_TITLE:
                 String trackTitle = playbackInfo.getTrackTitle();
                 if (trackTitle != null) {
                     setChannelValue(CHANNEL_TRACK_TITLE, new StringType(trackTitle));
                 }
+                break;
             case CHANNEL_TRACK_ALBUM:
                 String trackAlbum = playbackInfo.getTrackAlbum();
                 if (trackAlbum != null) {
                     setChannelValue(CHANNEL_TRACK_ALBUM, new StringType(trackAlbum));
                 }
+                break;
             case CHANNEL_TRACK_PROGRESS:
-                Integer trackDuration = playbackInfo.getTrackDuration();
-                Integer trackProgressMs = playbackInfo.getTrackProgressMs();
-                if (trackDuration != null && trackProgressMs != null) {
-                    Integer trackProgressPercentage = (100 * trackProgressMs) / trackDuration;
-                    setChannelValue(CHANNEL_TRACK_PROGRESS, new PercentType(trackProgressPercentage));
-                }
+                lastTrackProgressPercentage = -1;
+                updateTrackProgressChannel();
+                break;
+            case CHANNEL_API_REQUESTS:
+            case CHANNEL_API_ERRORS:
+            case CHANNEL_API_LATENCY:
+            case CHANNEL_API_METRICS:
+                updateApiMetricsChannels();
+                break;
         }
     }
 
@@ -241,16 +406,59 @@ public class SpotifyHandler extends BaseThingHandler implements AuthorizationCod
         int redirectUriPort = config.redirectUriPort;
         String redirectUriResource = config.redirectUriResource;
         playbackRefreshInterval = config.playbackRefreshInterval;
+        playbackIdleRefreshInterval = config.playbackIdleRefreshInterval;
+        progressRefreshInterval = config.progressRefreshInterval;
+        optimisticUpdates = config.optimisticUpdates;
         devicesRefreshInterval = config.devicesRefreshInterval;
         playlistsRefreshInterval = config.playlistsRefreshInterval;
         refreshToken = config.refreshToken;
+        accessToken = config.accessToken != null ? config.accessToken : "";
+        accessTokenExpiry = config.accessTokenExpiry;
         String redirectUri = String.format("http://%s:%s/%s", redirectUriHost, redirectUriPort, redirectUriResource);
 
+        this.requestBudget = requestGovernor.getBudget(clientId);
+        this.tokenManager = new SpotifyTokenManager(scheduler, requestExecutor, this);
+        this.apiMetrics = new SpotifyApiMetrics();
+        IHttpManager httpManager = new ConditionalRequestHttpManager(httpTransport.getHttpClient(), httpTransport);
+        if (config.apiBaseUri != null && !config.apiBaseUri.trim().isEmpty()) {
+            logger.info("Sending the Spotify API requests to '{}'", config.apiBaseUri);
+            httpManager = new BaseUriHttpManager(URI.create(config.apiBaseUri.trim()), httpManager);
+        }
+        RequestDeadlines deadlines = new RequestDeadlines(
+                config.requestDeadline > 0 ? config.requestDeadline : DEFAULT_REQUEST_DEADLINE,
+                config.endpointDeadlines);
+        maxRequestDeadlineMs = deadlines.getMaxDeadlineMs();
+        circuitBreaker = new CircuitBreaker(() -> eventLoop.execute(this::updateDegradedStatus));
+        IHttpManager apiHttpManager = requestGovernor.createHttpManager(clientId,
+                deadlines.createHttpManager(apiMetrics.createHttpManager(httpManager), requestExecutor), apiMetrics);
+        if (config.hedgePercentile > 0) {
+            apiHttpManager = new HedgingHttpManager(apiHttpManager, apiMetrics, requestExecutor,
+                    config.hedgePercentile);
+        }
         this.spotifyApi = new SpotifyApi.Builder().setClientId(clientId).setClientSecret(clientSecret)
-                .setRedirectUri(SpotifyHttpManager.makeUri(redirectUri)).build();
+                .setRedirectUri(SpotifyHttpManager.makeUri(redirectUri))
+                .setHttpManager(tokenManager.createHttpManager(circuitBreaker.createHttpManager(apiHttpManager)))
+                .build();
+        tokenManager.setSpotifyApi(spotifyApi);
 
+        eventLoop = new AccountEventLoop(scheduler);
         playbackInfo = new PlaybackInformationCache();
         accountInfo = new AccountInformationCache();
+        playlistSynchronizer = new PlaylistSynchronizer(spotifyApi, requestExecutor);
+        playbackPollingScheduler = new PlaybackPollingScheduler(playbackRefreshInterval, playbackIdleRefreshInterval);
+        optimisticState = new OptimisticStateTracker();
+        pollingWatchdog = new PollingWatchdog();
+        lastTrackProgressPercentage = -1;
+
+        // Warm start from the last stored state, the polls revalidate it once the account is online
+        AccountStateStore stateStore = new AccountStateStore(getThing().getUID().getAsString());
+        accountStateStore = stateStore;
+        if (stateStore.load(playbackInfo, accountInfo)) {
+            updateDeviceChannelStates(accountInfo.getAvailableDevices());
+            updatePlaylistChannelStates(accountInfo.getSavedPlaylistsInOrder());
+        }
+        playbackControl = new PlaybackControl(spotifyApi, playbackInfo, accountInfo, requestBudget, requestExecutor);
+        commandQueue = new PlaybackCommandQueue(scheduler, this::refreshAfterCommands);
 
         updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.NONE, "Manual configuration started");
 
@@ -262,27 +470,70 @@ public class SpotifyHandler extends BaseThingHandler implements AuthorizationCod
 
         } else {
             logger.debug("Refresh token is valid, getting the accessToken");
-            this.setRefreshToken(refreshToken);
+            String configuredRefreshToken = refreshToken;
+            eventLoop.execute(() -> setRefreshToken(configuredRefreshToken));
         }
     }
 
     @Override
     public void dispose() {
+        if (tokenManager != null) {
+            tokenManager.dispose();
+        }
+
+        if (commandQueue != null) {
+            commandQueue.dispose();
+        }
+
+        stopPolling();
+
+        // Saved by the event loop, the only writer of the account state, once the event it may be running is done
+        eventLoop.dispose(this::saveAccountState);
+    }
+
+    /**
+     * Stops all the polling jobs and their watchdog.
+     */
+    private synchronized void stopPolling() {
         if (devicesInfoPollingJob != null) {
             devicesInfoPollingJob.cancel(true);
         }
 
-        if (playbackInfoPollingJob != null) {
-            playbackInfoPollingJob.cancel(true);
+        stopPlaybackInfoPolling();
+
+        if (trackProgressUpdateJob != null) {
+            trackProgressUpdateJob.cancel(true);
         }
 
         if (usersPlaylistsPollingJob != null) {
             usersPlaylistsPollingJob.cancel(true);
         }
 
+        if (apiMetricsUpdateJob != null) {
+            apiMetricsUpdateJob.cancel(true);
+        }
+
+        if (watchdogJob != null) {
+            watchdogJob.cancel(true);
+        }
+        pollingWatchdog.unwatchAll();
+
         devicesInfoPollingJob = null;
-        playbackInfoPollingJob = null;
         usersPlaylistsPollingJob = null;
+        trackProgressUpdateJob = null;
+        apiMetricsUpdateJob = null;
+        watchdogJob = null;
+    }
+
+    @Override
+    public void handleRemoval() {
+        // The thing is disposed after its removal, so the store is dropped first to keep it from saving again
+        AccountStateStore stateStore = accountStateStore;
+        accountStateStore = null;
+        if (stateStore != null) {
+            stateStore.delete();
+        }
+        updateStatus(ThingStatus.REMOVED);
     }
 
     private void presentAuthorizationCodeUri() {
@@ -304,152 +555,351 @@ public class SpotifyHandler extends BaseThingHandler implements AuthorizationCod
 
     @Override
     public void setAuthorizationCode(String authCode) {
-        logger.debug("Authorization code received: {}", authCode);
+        logger.debug("Authorization code received");
         this.authorizationCode = authCode;
         this.spotifyAuthorizationHandler.stop();
 
-        String refreshToken = getRefreshTokenFromCode(this.authorizationCode);
-        if (!refreshToken.isEmpty()) {
-            this.setRefreshToken(refreshToken);
-        }
+        getRefreshTokenFromCode(this.authorizationCode).thenAcceptAsync(refreshToken -> {
+            if (!refreshToken.isEmpty()) {
+                this.setRefreshToken(refreshToken);
+            }
+        }, eventLoop);
     }
 
     // Refresh token methods
-    private String getRefreshTokenFromCode(String authorizationCode) {
-        AuthorizationCodeRequest authorizationCodeRequest = spotifyApi.authorizationCode(authorizationCode).build();
-        try {
-            AuthorizationCodeCredentials authorizationCodeCredentials = authorizationCodeRequest.execute();
-
-            return authorizationCodeCredentials.getRefreshToken();
-        } catch (IOException | SpotifyWebApiException e) {
-            logger.error("Error: " + e.getMessage());
-            return "";
-        }
+    private CompletableFuture<String> getRefreshTokenFromCode(String authorizationCode) {
+        return requestExecutor.<AuthorizationCodeCredentials> execute(RequestPriority.INTERACTIVE,
+                spotifyApi.authorizationCode(authorizationCode).build()).handle((authorizationCodeCredentials, e) -> {
+                    if (e != null) {
+                        logger.error("Error: " + SpotifyRequestExecutor.unwrap(e).getMessage());
+                        return "";
+                    }
+                    return authorizationCodeCredentials.getRefreshToken();
+                });
     }
 
     private void setRefreshToken(String refreshToken) {
-        logger.debug("Refresh token received: {}", refreshToken);
-        this.refreshToken = refreshToken;
-        updateThingRefreshToken(refreshToken);
+        logger.debug("Refresh token received");
+        if (!refreshToken.equals(this.refreshToken)) {
+            this.refreshToken = refreshToken;
+            updateThingRefreshToken(refreshToken);
+            // The stored access token belongs to the previous refresh token
+            accessToken = "";
+            accessTokenExpiry = 0;
+        }
         spotifyApi.setRefreshToken(refreshToken);
 
-        String accessToken = getAccessToken();
-        if (!accessToken.isEmpty()) {
-            this.setAccessToken(accessToken);
+        if (tokenManager.setAccessToken(accessToken, accessTokenExpiry)) {
+            logger.debug("Reusing the stored access token");
+            startPolling();
+            return;
         }
+
+        // A failed refresh is reported through accessTokenRefreshFailed, and retried by the token manager
+        // unless the refresh token was rejected
+        tokenManager.refreshAccessTokenAsync();
     }
 
     // Access token methods
-    private String getAccessToken() {
-        final AuthorizationCodeRefreshRequest authorizationCodeRefreshRequest = spotifyApi.authorizationCodeRefresh()
-                .build();
+    @Override
+    public void accessTokenRefreshed(String accessToken, long expiresAt) {
+        logger.debug("New access token received, valid until {}", expiresAt);
+        apiMetrics.recordTokenRefresh(true);
+        eventLoop.execute(() -> {
+            updateThingAccessToken(accessToken, expiresAt);
+            startPolling();
+        });
+    }
 
-        try {
-            final Future<AuthorizationCodeCredentials> authorizationCodeCredentialsFuture = authorizationCodeRefreshRequest
-                    .executeAsync();
+    @Override
+    public void accessTokenRefreshFailed(Throwable cause) {
+        apiMetrics.recordTokenRefresh(false);
+        if (!SpotifyTokenManager.isAuthorizationRejected(cause)) {
+            // Network and server errors are retried by the token manager
+            logger.error("Error refreshing the access token: {}", cause.getMessage());
+            return;
+        }
 
-            final AuthorizationCodeCredentials authorizationCodeCredentials = authorizationCodeCredentialsFuture.get();
+        // The token manager stopped the renewal, the account has to be authorized again
+        logger.warn("Spotify rejected the refresh token: {}", cause.getMessage());
+        eventLoop.execute(() -> {
+            stopPolling();
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                    "The refresh token was rejected (" + cause.getMessage()
+                            + "). Clear it to authorize the account again");
+        });
+    }
 
-            int expireAccessToken = authorizationCodeCredentials.getExpiresIn();
-            int tokenRefreshTime = expireAccessToken - TOKEN_REFRESH_ANTICIPATION;
-            logger.debug("Access token expires in {} seconds. Refresh it in {} seconds", expireAccessToken,
-                    tokenRefreshTime);
-            scheduler.schedule(refreshAccessTokenRunnable, tokenRefreshTime, TimeUnit.SECONDS);
-            return authorizationCodeCredentials.getAccessToken();
-        } catch (InterruptedException | ExecutionException e) {
-            logger.error("Error: " + e.getCause().getMessage());
-            return "";
+    /**
+     * Brings the thing online and starts the polling jobs. It does nothing if the thing is already online,
+     * so renewing the access token does not disturb the polling.
+     */
+    private synchronized void startPolling() {
+        if (getThing().getStatus().equals(ThingStatus.ONLINE)) {
+            return;
+        }
+
+        logger.info("Spotify account correctly configured");
+        updateStatus(ThingStatus.ONLINE);
+        updateChannelsFromCache();
+
+        usersInfoPollingRunnable.run();
+
+        updatePollingJobs(5);
+        if (watchdogJob == null) {
+            watchdogJob = scheduler.scheduleWithFixedDelay(pollingWatchdog::check, WATCHDOG_INTERVAL,
+                    WATCHDOG_INTERVAL, TimeUnit.SECONDS);
         }
     }
 
-    private Runnable refreshAccessTokenRunnable = new Runnable() {
-        @Override
-        public void run() {
-            logger.debug("Refreshing access token...");
+    /**
+     * Starts the polling jobs whose channels are linked and stops the ones nobody consumes.
+     *
+     * @param initialDelay delay (in s) before the first poll of the jobs started now
+     */
+    protected synchronized void updatePollingJobs(long initialDelay) {
+        boolean playbackConsumed = isPlaybackConsumed();
+        if (playbackConsumed && playbackInfoPollingJob == null) {
+            logger.debug("Starting the playback polling");
+            schedulePlaybackInfoPolling(TimeUnit.SECONDS.toMillis(initialDelay));
+            pollingWatchdog.watch(PLAYBACK_JOB, getMaxSilenceMs(playbackIdleRefreshInterval + initialDelay),
+                    this::refreshPlaybackInfo);
+        } else if (!playbackConsumed && playbackInfoPollingJob != null) {
+            logger.debug("No playback channel linked, stopping the playback polling");
+            stopPlaybackInfoPolling();
+            pollingWatchdog.unwatch(PLAYBACK_JOB);
+        }
 
-            try {
-                String accessToken = getAccessToken();
-                if (!accessToken.isEmpty()) {
-                    setAccessToken(accessToken);
-                }
-            } catch (Exception e) {
-                logger.error("Error in refreshAccessTokenRunnable: {}", e.getMessage());
+        if (isLinked(CHANNEL_TRACK_PROGRESS) && progressRefreshInterval > 0) {
+            if (trackProgressUpdateJob == null) {
+                trackProgressUpdateJob = scheduler.scheduleAtFixedRate(
+                        () -> eventLoop.execute(trackProgressUpdateRunnable), progressRefreshInterval,
+                        progressRefreshInterval, TimeUnit.SECONDS);
             }
+        } else {
+            trackProgressUpdateJob = cancel(trackProgressUpdateJob);
         }
-    };
 
-    private void setAccessToken(String accessToken) {
-        logger.debug("New access token received: {}", accessToken);
-        spotifyApi.setAccessToken(accessToken);
+        if (isDevicesConsumed()) {
+            if (devicesInfoPollingJob == null) {
+                logger.debug("Starting the devices polling");
+                devicesInfoPollingJob = scheduler.scheduleWithFixedDelay(devicesInfoPollingRunnable, initialDelay,
+                        devicesRefreshInterval, TimeUnit.SECONDS);
+                pollingWatchdog.watch(DEVICES_JOB, getMaxSilenceMs(devicesRefreshInterval + initialDelay),
+                        () -> restartPollingJob(DEVICES_JOB));
+            }
+        } else if (devicesInfoPollingJob != null) {
+            logger.debug("No devices channel linked, stopping the devices polling");
+            devicesInfoPollingJob = cancel(devicesInfoPollingJob);
+            pollingWatchdog.unwatch(DEVICES_JOB);
+        }
 
-        if (!getThing().getStatus().equals(ThingStatus.ONLINE)) {
-            logger.info("Spotify account correctly configured");
-            playbackControl = new PlaybackControl(spotifyApi, playbackInfo, accountInfo);
-            updateStatus(ThingStatus.ONLINE);
+        if (isPlaylistsConsumed()) {
+            if (usersPlaylistsPollingJob == null) {
+                logger.debug("Starting the playlists polling");
+                usersPlaylistsPollingJob = scheduler.scheduleWithFixedDelay(usersPlaylistsPollingRunnable,
+                        initialDelay, playlistsRefreshInterval, TimeUnit.SECONDS);
+                pollingWatchdog.watch(PLAYLISTS_JOB, getMaxSilenceMs(playlistsRefreshInterval + initialDelay),
+                        () -> restartPollingJob(PLAYLISTS_JOB));
+            }
+        } else if (usersPlaylistsPollingJob != null) {
+            logger.debug("No playlists channel linked, stopping the playlists polling");
+            usersPlaylistsPollingJob = cancel(usersPlaylistsPollingJob);
+            pollingWatchdog.unwatch(PLAYLISTS_JOB);
         }
 
-        scheduler.schedule(usersInfoPollingRunnable, 0, TimeUnit.SECONDS);
+        if (isAnyLinked(API_METRICS_CHANNELS)) {
+            if (apiMetricsUpdateJob == null) {
+                apiMetricsUpdateJob = scheduler.scheduleWithFixedDelay(this::updateApiMetricsChannels,
+                        API_METRICS_REFRESH_INTERVAL, API_METRICS_REFRESH_INTERVAL, TimeUnit.SECONDS);
+            }
+        } else {
+            apiMetricsUpdateJob = cancel(apiMetricsUpdateJob);
+        }
+    }
 
-        if (playbackInfoPollingJob != null) {
-            playbackInfoPollingJob.cancel(true);
-            playbackInfoPollingJob = null;
+    /**
+     * Returns how long a job polling every given number of seconds may stay silent before the watchdog restarts
+     * it: two intervals, plus the deadline of a request and of its retry.
+     */
+    private long getMaxSilenceMs(long interval) {
+        return 2 * TimeUnit.SECONDS.toMillis(interval) + 2 * maxRequestDeadlineMs;
+    }
+
+    /**
+     * Replaces a fixed delay polling job, which stops for good when its runnable throws.
+     */
+    private synchronized void restartPollingJob(String job) {
+        if (DEVICES_JOB.equals(job)) {
+            devicesInfoPollingJob = cancel(devicesInfoPollingJob);
+        } else if (PLAYLISTS_JOB.equals(job)) {
+            usersPlaylistsPollingJob = cancel(usersPlaylistsPollingJob);
         }
-        playbackInfoPollingJob = scheduler.scheduleWithFixedDelay(playbackInfoPollingRunnable, 5,
-                playbackRefreshInterval, TimeUnit.SECONDS);
+        updatePollingJobs(0);
+    }
 
-        if (devicesInfoPollingJob != null) {
-            devicesInfoPollingJob.cancel(true);
-            devicesInfoPollingJob = null;
+    protected boolean isPlaybackConsumed() {
+        return isAnyLinked(PLAYBACK_CHANNELS);
+    }
+
+    protected boolean isDevicesConsumed() {
+        return isAnyLinked(DEVICES_CHANNELS);
+    }
+
+    protected boolean isPlaylistsConsumed() {
+        return isAnyLinked(PLAYLISTS_CHANNELS);
+    }
+
+    private boolean isAnyLinked(Set<String> channels) {
+        for (String channel : channels) {
+            if (isLinked(channel)) {
+                return true;
+            }
         }
-        devicesInfoPollingJob = scheduler.scheduleWithFixedDelay(devicesInfoPollingRunnable, 5, devicesRefreshInterval,
-                TimeUnit.SECONDS);
+        return false;
+    }
 
-        if (usersPlaylistsPollingJob != null) {
-            usersPlaylistsPollingJob.cancel(true);
-            usersPlaylistsPollingJob = null;
+    @Nullable
+    private ScheduledFuture<?> cancel(@Nullable ScheduledFuture<?> job) {
+        if (job != null) {
+            job.cancel(true);
         }
-        usersPlaylistsPollingJob = scheduler.scheduleWithFixedDelay(usersPlaylistsPollingRunnable, 5,
-                playlistsRefreshInterval, TimeUnit.SECONDS);
+        return null;
     }
 
-    private Runnable devicesInfoPollingRunnable = new Runnable() {
-        @Override
-        public void run() {
-            logger.debug("Getting devices information from spotify API");
+    /**
+     * Returns the metrics of the Spotify Web API requests of this account.
+     */
+    public SpotifyApiMetrics.Snapshot getApiMetrics() {
+        return apiMetrics.getSnapshot();
+    }
 
-            GetUsersAvailableDevicesRequest getUsersAvailableDevicesRequest = spotifyApi.getUsersAvailableDevices()
-                    .build();
+    AccountEventLoop getEventLoop() {
+        return eventLoop;
+    }
 
-            try {
-                Future<Device[]> devicesFuture = getUsersAvailableDevicesRequest.executeAsync();
+    PlaybackInformationCache getPlaybackInfo() {
+        return playbackInfo;
+    }
 
-                Device[] devices = devicesFuture.get();
+    AccountInformationCache getAccountInfo() {
+        return accountInfo;
+    }
 
-                Map<String, Device> newDevices = new ConcurrentHashMap<>();
+    @Nullable
+    PlaybackControl getPlaybackControl() {
+        return playbackControl;
+    }
 
-                logger.debug("Number of available devices: {}", devices.length);
-                for (Device device : devices) {
-                    newDevices.put(device.getName(), device);
-                }
+    @Nullable
+    PlaybackCommandQueue getCommandQueue() {
+        return commandQueue;
+    }
 
-                if (accountInfo.getAvailableDevices().keySet().equals(newDevices.keySet())) {
-                    logger.debug("No new devices, keeping the channel the same");
-                    return;
-                }
+    List<StateOption> getPlaylistOptions() {
+        return createPlaylistOptions(accountInfo.getSavedPlaylistsInOrder());
+    }
+
+    private List<StateOption> createPlaylistOptions(List<PlaylistSimplified> playlists) {
+        List<StateOption> options = new ArrayList<>(playlists.size());
+        for (PlaylistSimplified playlist : playlists) {
+            options.add(new StateOption(playlist.getName(), playlist.getName()));
+        }
+        return options;
+    }
+
+    private void updateApiMetricsChannels() {
+        SpotifyApiMetrics.Snapshot metrics = apiMetrics.getSnapshot();
+        logger.trace("Spotify API metrics: {}", apiMetrics.toJson(metrics));
 
-                accountInfo.setAvailableDevices(newDevices);
-                updateDeviceChannelStates(accountInfo.getAvailableDevices());
-            } catch (InterruptedException e) {
-                logger.error("DeviceInfoPollingRunnable 'InterruptedException' error: {}", e.getMessage());
-            } catch (ExecutionException e) {
-                logger.error("DeviceInfoPollingRunnable 'ExecutionException' error: {}", e.getMessage());
+        setChannelValue(CHANNEL_API_REQUESTS, new DecimalType(metrics.getRequests()));
+        setChannelValue(CHANNEL_API_ERRORS, new DecimalType(metrics.getErrors()));
+        setChannelValue(CHANNEL_API_LATENCY, new DecimalType(metrics.getLatencyPercentileMs(95)));
+        if (isLinked(CHANNEL_API_METRICS)) {
+            setChannelValue(CHANNEL_API_METRICS, new StringType(apiMetrics.toJson(metrics)));
+        }
+    }
+
+    private Runnable devicesInfoPollingRunnable = () -> pollDevicesInfo(RequestPriority.BACKGROUND);
+
+    private void pollDevicesInfo(RequestPriority priority) {
+        logger.debug("Getting devices information from spotify API");
+
+        requestExecutor
+                .executeIfModified(priority, spotifyApi.getUsersAvailableDevices().build(),
+                        json -> new Device.JsonUtil().createModelObjectArray(json, "devices"))
+                .thenAcceptAsync(devices -> {
+                    if (devices == null) {
+                        logger.debug("Devices not modified, keeping the channel the same");
+                        return;
+                    }
+                    updateDevicesInfo(devices);
+                }, eventLoop).exceptionally(e -> {
+                    if (isDeferred(e)) {
+                        logger.debug("Devices poll deferred: {}", SpotifyRequestExecutor.unwrap(e).getMessage());
+                    } else {
+                        logger.error("DeviceInfoPollingRunnable error: {}",
+                                SpotifyRequestExecutor.unwrap(e).getMessage());
+                    }
+                    return null;
+                }).thenRun(() -> pollingWatchdog.heartbeat(DEVICES_JOB));
+    }
+
+    /**
+     * Returns whether a poll was not sent, because the budget left for its lane was exhausted or the circuit of its
+     * endpoint is open. The last known state is kept and the poll runs again on its next period.
+     */
+    private boolean isDeferred(Throwable e) {
+        Throwable cause = SpotifyRequestExecutor.unwrap(e);
+        return cause instanceof CircuitOpenException || cause instanceof RequestBudgetExhaustedException;
+    }
+
+    /**
+     * Marks the thing as degraded while the circuit of an endpoint is open. The thing stays online, so its
+     * channels keep the last known state of the account.
+     */
+    private void updateDegradedStatus() {
+        if (!getThing().getStatus().equals(ThingStatus.ONLINE)) {
+            return;
+        }
+        Set<String> openEndpoints = circuitBreaker.getOpenEndpoints();
+        if (openEndpoints.isEmpty()) {
+            updateStatus(ThingStatus.ONLINE);
+        } else {
+            updateStatus(ThingStatus.ONLINE, ThingStatusDetail.COMMUNICATION_ERROR,
+                    "Spotify Web API degraded, showing the last known state. Failing: "
+                            + String.join(", ", openEndpoints));
+        }
+    }
+
+    private void updateDevicesInfo(Device[] devices) {
+        devicesUpdated(devices);
+        Map<String, Device> newDevices = new LinkedHashMap<>();
+
+        logger.debug("Number of available devices: {}", devices.length);
+        for (Device device : devices) {
+            newDevices.put(device.getName(), device);
+            // Without the playback polling, the active device is only known from here
+            if (playbackInfoPollingJob == null && Boolean.TRUE.equals(device.getIs_active())
+                    && !device.getName().equals(playbackInfo.getDeviceName())) {
+                playbackInfo.setDeviceName(device.getName());
+                setChannelValue(CHANNEL_DEVICE_NAME, new StringType(device.getName()));
             }
         }
-    };
+
+        if (accountInfo.getAvailableDevices().keySet().equals(newDevices.keySet())) {
+            logger.debug("No new devices, keeping the channel the same");
+            return;
+        }
+
+        accountInfo.setAvailableDevices(newDevices);
+        updateDeviceChannelStates(accountInfo.getAvailableDevices());
+        saveAccountState();
+    }
 
     private void updateDeviceChannelStates(Map<String, Device> devices) {
 
-        List<StateOption> options = new LinkedList<StateOption>();
+        List<StateOption> options = new ArrayList<>(devices.size());
 
         for (Device device : devices.values()) {
             options.add(new StateOption(device.getName(), device.getName()));
@@ -459,174 +909,261 @@ public class SpotifyHandler extends BaseThingHandler implements AuthorizationCod
 
     }
 
-    private Runnable playbackInfoPollingRunnable = new Runnable() {
-        @Override
-        public void run() {
-            logger.debug("Getting playback information from spotify API");
-
-            GetInformationAboutUsersCurrentPlaybackRequest getInformationAboutUsersCurrentPlaybackRequest = spotifyApi
-                    .getInformationAboutUsersCurrentPlayback().build();
-
-            CurrentlyPlayingContext currentlyPlayingContext = null;
-
-            try {
-                Future<CurrentlyPlayingContext> currentlyPlayingContextFuture = getInformationAboutUsersCurrentPlaybackRequest
-                        .executeAsync();
+    private CompletableFuture<Void> pollPlaybackInfo(RequestPriority priority) {
+        logger.debug("Getting playback information from spotify API");
+
+        IRequest request = spotifyApi.getInformationAboutUsersCurrentPlayback().build();
+        return requestExecutor
+                .supply(priority, () -> playbackDecoder.decode(request.getJson(), playbackInfo.getSnapshot()))
+                .handleAsync((playback, e) -> {
+                    if (e != null) {
+                        handlePlaybackInfoError(SpotifyRequestExecutor.unwrap(e));
+                    } else if (playback == null) {
+                        handleNothingPlaying();
+                    } else {
+                        noInformationAvailable = false;
+                        updatePlaybackInfo(playback);
+                    }
+                    return null;
+                }, eventLoop);
+    }
 
-                currentlyPlayingContext = currentlyPlayingContextFuture.get();
+    /**
+     * Keeps the last known playback state: a failed poll says nothing about what is playing, and resetting the
+     * channels would make them flicker to stopped on transient errors.
+     */
+    private void handlePlaybackInfoError(Throwable cause) {
+        if (cause instanceof SpotifyWebApiException || cause instanceof IOException) {
+            logger.debug("Error getting playback information: {}", cause.getMessage());
+        } else {
+            logger.warn("Unexpected error getting playback information: {}", cause.getMessage());
+        }
+    }
 
-                noInformationAvailable = false;
+    /**
+     * Resets the playback channels when the Web API answered that nothing is playing (an empty response).
+     */
+    private void handleNothingPlaying() {
+        logger.debug("Nothing playing");
+        if (!noInformationAvailable) {
+            setChannelValue(CHANNEL_PLAYER_CONTROL, PlayPauseType.PAUSE);
+            setChannelValue(CHANNEL_TRACK_PROGRESS, new PercentType(0));
+            lastTrackProgressPercentage = 0;
+        }
+        noInformationAvailable = true;
+        playbackUpdated(playbackInfo.getSnapshot(), null);
+    }
 
-            } catch (ExecutionException e) {
-                logger.debug("Nothing playing");
-                if (!noInformationAvailable) {
-                    setChannelValue(CHANNEL_PLAYER_CONTROL, PlayPauseType.PAUSE);
-                    setChannelValue(CHANNEL_TRACK_PROGRESS, new PercentType(0));
-                }
-                noInformationAvailable = true;
-                return;
-            } catch (InterruptedException e) {
-                logger.debug("Nothing playing 'InterruptedException': {}", e);
-                return;
+    private void updatePlaybackInfo(CurrentPlayback playback) {
+        PlaybackSnapshot current = playbackInfo.getSnapshot();
+        PlaybackSnapshot snapshot = playback.getSnapshot();
+        Device device = playback.getDevice();
+        boolean trackProgressReceived = true;
+
+        // Optimistic values are kept until a poll confirms them
+        if (!optimisticState.isEmpty()) {
+            PlaybackSnapshot.Builder builder = snapshot.toBuilder();
+            if (optimisticState.isPending(Field.TRACK_PROGRESS, snapshot.getTrackProgressMs())) {
+                builder.setTrackProgressMs(current.getTrackProgressMs());
+                trackProgressReceived = false;
             }
-
-            // Track title
-            String trackTitle = currentlyPlayingContext.getItem().getName();
-            logger.debug("Received track 'title': {}", trackTitle);
-            if (!trackTitle.equals(playbackInfo.getTrackTitle())) {
-                playbackInfo.setTrackTitle(trackTitle);
-                setChannelValue(CHANNEL_TRACK_TITLE, new StringType(trackTitle));
+            if (optimisticState.isPending(Field.DEVICE_NAME, snapshot.getDeviceName())) {
+                builder.setDeviceName(current.getDeviceName());
             }
-
-            // Track artist
-            List<String> artistNames = new ArrayList<>();
-            for (ArtistSimplified artist : currentlyPlayingContext.getItem().getArtists()) {
-                artistNames.add(artist.getName());
+            if (optimisticState.isPending(Field.DEVICE_VOLUME, snapshot.getDeviceVolume())) {
+                builder.setDeviceVolume(current.getDeviceVolume());
             }
-            String trackArtist = String.join(",", artistNames);
-            logger.debug("Received track 'artist': {}", trackArtist);
-            if (!trackArtist.equals(playbackInfo.getTrackArtist())) {
-                playbackInfo.setTrackArtist(trackArtist);
-                setChannelValue(CHANNEL_TRACK_ARTIST, new StringType(trackArtist));
+            if (optimisticState.isPending(Field.IS_PLAYING, snapshot.isPlaying())) {
+                builder.setIsPlaying(current.isPlaying());
             }
+            snapshot = builder.build();
+        }
 
-            // Track album
-            String trackAlbum = currentlyPlayingContext.getItem().getAlbum().getName();
-            logger.debug("Received track 'album': {}", trackAlbum);
-            if (!trackAlbum.equals(playbackInfo.getTrackAlbum())) {
-                playbackInfo.setTrackAlbum(trackAlbum);
-                setChannelValue(CHANNEL_TRACK_ALBUM, new StringType(trackAlbum));
-            }
+        int changes = current.diff(snapshot);
+        playbackInfo.setSnapshot(snapshot, trackProgressReceived);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Received playback information: {}, changes: {}", snapshot, Integer.toBinaryString(changes));
+        }
 
-            // Track duration
-            Integer trackDuration = currentlyPlayingContext.getItem().getDurationMs();
-            if (!trackDuration.equals(playbackInfo.getTrackDuration())) {
-                playbackInfo.setTrackDuration(trackDuration);
-            }
+        if (!accountInfo.getAvailableDevices().containsKey(device.getName())) {
+            logger.debug("New device detected: {}", device.getName());
+            accountInfo.addAvailableDevice(device);
+            updateDeviceChannelStates(accountInfo.getAvailableDevices());
+        }
 
-            // Track progress (ms)
-            Integer trackProgressMs = currentlyPlayingContext.getProgress_ms();
-            if (!trackProgressMs.equals(playbackInfo.getTrackProgressMs())) {
-                playbackInfo.setTrackProgressMs(trackProgressMs);
-                logger.debug("Track duration: {}", trackDuration);
-                logger.debug("Track progress: {}", trackProgressMs);
-                Integer trackProgressPercentage = (100 * trackProgressMs) / trackDuration;
-                setChannelValue(CHANNEL_TRACK_PROGRESS, new PercentType(trackProgressPercentage));
-            }
+        if ((changes & PlaybackSnapshot.TRACK_TITLE) != 0) {
+            setChannelValue(CHANNEL_TRACK_TITLE, new StringType(snapshot.getTrackTitle()));
+        }
+        if ((changes & PlaybackSnapshot.TRACK_ARTIST) != 0) {
+            setChannelValue(CHANNEL_TRACK_ARTIST, new StringType(snapshot.getTrackArtist()));
+        }
+        if ((changes & PlaybackSnapshot.TRACK_ALBUM) != 0) {
+            setChannelValue(CHANNEL_TRACK_ALBUM, new StringType(snapshot.getTrackAlbum()));
+        }
+        if ((changes & PlaybackSnapshot.DEVICE_NAME) != 0) {
+            setChannelValue(CHANNEL_DEVICE_NAME, new StringType(snapshot.getDeviceName()));
+        }
+        if ((changes & PlaybackSnapshot.DEVICE_VOLUME) != 0 && snapshot.getDeviceVolume() != null) {
+            setChannelValue(CHANNEL_DEVICE_VOLUME, new PercentType(snapshot.getDeviceVolume()));
+        }
+        if ((changes & PlaybackSnapshot.IS_PLAYING) != 0) {
+            setChannelValue(CHANNEL_PLAYER_CONTROL,
+                    Boolean.TRUE.equals(snapshot.isPlaying()) ? PlayPauseType.PLAY : PlayPauseType.PAUSE);
+        }
 
-            // Active device
-            Device device = currentlyPlayingContext.getDevice();
-            logger.debug("Received device: {}", device);
-            if (!accountInfo.getAvailableDevices().containsKey(device.getName())) {
-                logger.debug("New device detected: {}", device.getName());
-                accountInfo.getAvailableDevices().put(device.getName(), device);
-                updateDeviceChannelStates(accountInfo.getAvailableDevices());
-            }
+        updateTrackProgressChannel();
+        playbackUpdated(snapshot, device);
+    }
 
-            // Active device name
-            String deviceName = device.getName();
-            logger.debug("Received device 'name': {}", deviceName);
-            if (!deviceName.equals(playbackInfo.getDeviceName())) {
-                playbackInfo.setDeviceName(deviceName);
-                setChannelValue(CHANNEL_DEVICE_NAME, new StringType(deviceName));
-            }
+    /**
+     * Called with every playback poll result. The active device is null if nothing is playing.
+     */
+    protected void playbackUpdated(PlaybackSnapshot snapshot, @Nullable Device activeDevice) {
+    }
 
-            // Active device volume
-            Integer deviceVolume = device.getVolume_percent();
-            logger.debug("Received device 'volume': {}", deviceVolume);
-            if (!deviceVolume.equals(playbackInfo.getDeviceVolume())) {
-                playbackInfo.setDeviceVolume(deviceVolume);
-                setChannelValue(CHANNEL_DEVICE_VOLUME, new PercentType(deviceVolume));
-            }
+    /**
+     * Called with every devices poll result that was modified since the previous one.
+     */
+    protected void devicesUpdated(Device[] devices) {
+    }
 
-            // is Playing
-            Boolean isPlaying = currentlyPlayingContext.getIs_playing();
-            logger.debug("Received 'isPlaying': {}", isPlaying);
-            if (!isPlaying.equals(playbackInfo.isPlaying())) {
-                playbackInfo.setIsPlaying(isPlaying);
-                setChannelValue(CHANNEL_PLAYER_CONTROL, isPlaying ? PlayPauseType.PLAY : PlayPauseType.PAUSE);
-            }
+    /**
+     * Called when the playlists options change.
+     */
+    protected void playlistsUpdated(List<StateOption> options) {
+    }
 
+    private Runnable trackProgressUpdateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (noInformationAvailable || !Boolean.TRUE.equals(playbackInfo.isPlaying())) {
+                return;
+            }
+            updateTrackProgressChannel();
         }
     };
 
-    private Runnable usersPlaylistsPollingRunnable = new Runnable() {
-        @Override
-        public void run() {
-            logger.debug("Getting user's playlist from spotify API");
+    /**
+     * Updates the track progress channel from the local progress clock, only when the percentage changes.
+     */
+    private void updateTrackProgressChannel() {
+        Integer trackDuration = playbackInfo.getTrackDuration();
+        Integer trackProgressMs = playbackInfo.getInterpolatedTrackProgressMs();
+        if (trackDuration == null || trackProgressMs == null || trackDuration <= 0) {
+            return;
+        }
 
-            GetListOfCurrentUsersPlaylistsRequest getListOfCurrentUsersPlaylistsRequest = spotifyApi
-                    .getListOfCurrentUsersPlaylists().limit(50).offset(0).build();
+        int trackProgressPercentage = (int) ((100L * trackProgressMs) / trackDuration);
+        if (trackProgressPercentage != lastTrackProgressPercentage) {
+            lastTrackProgressPercentage = trackProgressPercentage;
+            setChannelValue(CHANNEL_TRACK_PROGRESS, new PercentType(trackProgressPercentage));
+        }
+    }
 
-            Future<Paging<PlaylistSimplified>> pagingFuture = getListOfCurrentUsersPlaylistsRequest.executeAsync();
+    private Runnable playbackInfoPollingLoopRunnable = new Runnable() {
+        @Override
+        public void run() {
+            RequestPriority priority = playbackRefreshRequested ? RequestPriority.REFRESH : RequestPriority.BACKGROUND;
+            playbackRefreshRequested = false;
+            pollPlaybackInfo(priority).whenComplete((result, e) -> {
+                if (e != null) {
+                    logger.error("Error in playbackInfoPollingRunnable: {}", e.getMessage());
+                }
+                pollingWatchdog.heartbeat(PLAYBACK_JOB);
 
-            try {
-                Paging<PlaylistSimplified> playlistSimplifiedPaging = pagingFuture.get();
-                PlaylistSimplified[] playlistSimplified = playlistSimplifiedPaging.getItems();
+                synchronized (SpotifyHandler.this) {
+                    if (playbackInfoPollingJob != null) {
+                        schedulePlaybackInfoPolling(
+                                playbackPollingScheduler.getNextDelay(playbackInfo, noInformationAvailable));
+                    }
+                }
+            });
+        }
+    };
 
-                Map<String, PlaylistSimplified> newPlaylists = new ConcurrentHashMap<>();
-                List<StateOption> options = new LinkedList<StateOption>();
+    private synchronized void schedulePlaybackInfoPolling(long delayMs) {
+        ScheduledFuture<?> job = playbackInfoPollingJob;
+        if (job != null) {
+            job.cancel(false);
+        }
+        logger.debug("Next playback information poll in {} ms", delayMs);
+        playbackInfoPollingJob = scheduler.schedule(playbackInfoPollingLoopRunnable, delayMs, TimeUnit.MILLISECONDS);
+    }
 
-                for (PlaylistSimplified playlist : playlistSimplified) {
-                    options.add(new StateOption(playlist.getName(), playlist.getName()));
-                    newPlaylists.put(playlist.getName(), playlist);
-                }
+    private synchronized void stopPlaybackInfoPolling() {
+        ScheduledFuture<?> job = playbackInfoPollingJob;
+        if (job != null) {
+            job.cancel(true);
+        }
+        playbackInfoPollingJob = null;
+    }
 
-                if (accountInfo.getSavedPlaylists().keySet().equals(newPlaylists.keySet())) {
-                    logger.debug("No new playlists, keeping the channel the same");
-                    return;
-                }
+    /**
+     * Polls the playback information right away and restarts the adaptive polling at the playing rate,
+     * as a user command usually changes the playback state.
+     */
+    private synchronized void refreshPlaybackInfo() {
+        playbackPollingScheduler.reset();
+        if (playbackInfoPollingJob != null) {
+            playbackRefreshRequested = true;
+            schedulePlaybackInfoPolling(0);
+        }
+    }
 
-                stateDescriptionProvider.setStateOptions(new ChannelUID(getThing().getUID(), CHANNEL_USER_PLAYLISTS),
-                        options);
+    private Runnable usersPlaylistsPollingRunnable = () -> pollUsersPlaylists(RequestPriority.BACKGROUND);
 
-                accountInfo.setSavedPlaylists(newPlaylists);
+    private void pollUsersPlaylists(RequestPriority priority) {
+        logger.debug("Getting user's playlist from spotify API");
 
-            } catch (InterruptedException e) {
-                logger.debug("usersPlaylistPollingRunnable error 'InterruptedException': {}", e.getMessage());
-            } catch (ExecutionException e) {
-                logger.debug("usersPlaylistPollingRunnable error 'ExecutionException': {}", e.getMessage());
+        playlistSynchronizer.synchronize(priority).thenAcceptAsync(playlists -> {
+            if (playlists == null) {
+                logger.debug("Playlists not modified, keeping the channel the same");
+                return;
             }
+            updateUsersPlaylists(playlists);
+        }, eventLoop).exceptionally(e -> {
+            logger.debug("usersPlaylistPollingRunnable error: {}", SpotifyRequestExecutor.unwrap(e).getMessage());
+            return null;
+        }).thenRun(() -> pollingWatchdog.heartbeat(PLAYLISTS_JOB));
+    }
 
+    private void updateUsersPlaylists(List<PlaylistSimplified> playlists) {
+        if (!accountInfo.updateSavedPlaylists(playlists)) {
+            logger.debug("No new playlists, keeping the channel the same");
+            return;
         }
-    };
+
+        updatePlaylistChannelStates(playlists);
+        saveAccountState();
+    }
+
+    private void updatePlaylistChannelStates(List<PlaylistSimplified> playlists) {
+        List<StateOption> options = createPlaylistOptions(playlists);
+        stateDescriptionProvider.setStateOptions(new ChannelUID(getThing().getUID(), CHANNEL_USER_PLAYLISTS),
+                options);
+        playlistsUpdated(options);
+    }
 
     private Runnable usersInfoPollingRunnable = new Runnable() {
         @Override
         public void run() {
-            GetCurrentUsersProfileRequest getCurrentUsersProfileRequest = spotifyApi.getCurrentUsersProfile().build();
-
-            Future<User> userFuture = getCurrentUsersProfileRequest.executeAsync();
-
-            try {
-                User user = userFuture.get();
-                accountInfo.setUser(user);
-                logger.debug("User name: {}", user.getDisplayName());
-            } catch (InterruptedException e) {
-                logger.error("Error getting user information 'InterruptedException': {}", e.getMessage());
-            } catch (ExecutionException e) {
-                logger.error("Error getting user information:'ExecutionException' {}", e.getMessage());
-            }
+            requestExecutor.executeIfModified(RequestPriority.REFRESH, spotifyApi.getCurrentUsersProfile().build(),
+                    json -> new User.JsonUtil().createModelObject(json)).thenAcceptAsync(user -> {
+                        if (user == null) {
+                            logger.debug("User information not modified");
+                            return;
+                        }
+                        accountInfo.setUser(user);
+                        logger.debug("User name: {}", user.getDisplayName());
+                        saveAccountState();
+                    }, eventLoop).exceptionally(e -> {
+                if (isDeferred(e)) {
+                    logger.debug("User information poll deferred: {}", SpotifyRequestExecutor.unwrap(e).getMessage());
+                } else {
+                    logger.error("Error getting user information: {}", SpotifyRequestExecutor.unwrap(e).getMessage());
+                }
+                return null;
+            });
         }
     };
 
@@ -643,9 +1180,25 @@ public class SpotifyHandler extends BaseThingHandler implements AuthorizationCod
         }
     }
 
+    private void saveAccountState() {
+        AccountStateStore stateStore = accountStateStore;
+        if (stateStore != null) {
+            stateStore.save(playbackInfo, accountInfo);
+        }
+    }
+
     private void updateThingRefreshToken(String refreshToken) {
         Configuration configuration = editConfiguration();
         configuration.put(REFRESH_TOKEN_PARAMETER, refreshToken);
         updateConfiguration(configuration);
     }
+
+    private void updateThingAccessToken(String accessToken, long accessTokenExpiry) {
+        this.accessToken = accessToken;
+        this.accessTokenExpiry = accessTokenExpiry;
+        Configuration configuration = editConfiguration();
+        configuration.put(ACCESS_TOKEN_PARAMETER, accessToken);
+        configuration.put(ACCESS_TOKEN_EXPIRY_PARAMETER, BigDecimal.valueOf(accessTokenExpiry));
+        updateConfiguration(configuration);
+    }
 }
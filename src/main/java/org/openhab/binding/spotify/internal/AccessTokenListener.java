@@ -0,0 +1,34 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * The {@link AccessTokenListener} is notified by the {@link SpotifyTokenManager} about access token refreshes.
+ *
+ * @author agent - Initial contribution
+ */
+public interface AccessTokenListener {
+
+    /**
+     * Called after a new access token has been obtained.
+     *
+     * @param accessToken the new access token
+     * @param expiresAt expiry time of the access token, in seconds since the epoch
+     */
+    void accessTokenRefreshed(@NonNull String accessToken, long expiresAt);
+
+    void accessTokenRefreshFailed(@NonNull Throwable cause);
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link AccountEventLoop} is the single writer of the state of an account. Poll results, optimistic command
+ * updates and token events are posted to its mailbox and run one at a time, in the order they were posted, on a
+ * thread borrowed from the given executor, so an account does not hold a thread of its own. The state is
+ * published to the other threads as immutable snapshots (see {@link PlaybackInformationCache} and
+ * {@link AccountInformationCache}), so readers never lock.
+ *
+ * @author agent - Initial contribution
+ */
+public class AccountEventLoop implements Executor {
+
+    /** Maximum number of events run before the borrowed thread is handed back to the executor. */
+    private static final int MAX_EVENTS_PER_DRAIN = 64;
+    /** Longest time (in s) {@link #dispose(Runnable)} waits for the last event. */
+    private static final long LAST_EVENT_TIMEOUT = 5;
+
+    private final Logger logger = LoggerFactory.getLogger(AccountEventLoop.class);
+
+    private final Executor executor;
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean disposed;
+    /** Set once the last event has run: nothing runs on the loop anymore. */
+    private volatile boolean closed;
+    private volatile Thread loopThread;
+
+    public AccountEventLoop(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Posts an event to the mailbox. Events posted after {@link #dispose(Runnable)} are dropped.
+     */
+    @Override
+    public void execute(Runnable event) {
+        if (disposed) {
+            logger.trace("Event loop disposed, event dropped");
+            return;
+        }
+        mailbox.add(event);
+        scheduleDrain();
+    }
+
+    /**
+     * Checks whether the caller runs on the event loop, i.e. may write the account state.
+     */
+    public boolean inEventLoop() {
+        return Thread.currentThread() == loopThread;
+    }
+
+    /**
+     * Drops the pending events and runs the given one as the last event of the loop, like the final save of the
+     * state it owns. It waits for the last event to complete, so the caller sees the state as the loop left it.
+     * The event being run, if any, completes first.
+     */
+    public void dispose(Runnable lastEvent) {
+        disposed = true;
+        mailbox.clear();
+        if (inEventLoop()) {
+            lastEvent.run();
+            closed = true;
+            return;
+        }
+
+        CompletableFuture<Void> lastEventDone = new CompletableFuture<>();
+        mailbox.add(() -> {
+            try {
+                lastEvent.run();
+            } finally {
+                closed = true;
+                lastEventDone.complete(null);
+            }
+        });
+        scheduleDrain();
+        try {
+            lastEventDone.get(LAST_EVENT_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Event loop did not run its last event: {}", e.getMessage());
+        }
+    }
+
+    private void scheduleDrain() {
+        if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                logger.debug("Event loop executor rejected the drain: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        loopThread = Thread.currentThread();
+        try {
+            for (int i = 0; i < MAX_EVENTS_PER_DRAIN && !closed; i++) {
+                Runnable event = mailbox.poll();
+                if (event == null) {
+                    break;
+                }
+                try {
+                    event.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Error processing account event: {}", e.getMessage(), e);
+                }
+            }
+        } finally {
+            loopThread = null;
+            scheduled.set(false);
+        }
+        // Events posted while the flag was still set would otherwise wait for the next post
+        scheduleDrain();
+    }
+
+}
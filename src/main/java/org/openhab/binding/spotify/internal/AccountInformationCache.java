@@ -8,46 +8,250 @@
  */
 package org.openhab.binding.spotify.internal;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.wrapper.spotify.model_objects.miscellaneous.Device;
 import com.wrapper.spotify.model_objects.specification.PlaylistSimplified;
 import com.wrapper.spotify.model_objects.specification.User;
 
+/**
+ * Holds the user, the available devices and the saved playlists of an account. The three, with the name indexes
+ * of the devices and playlists, are published together as one immutable {@link Snapshot}: the setters, only
+ * called from the {@link AccountEventLoop} of the account, build an updated copy and swap it in, so readers never
+ * lock and never see a half applied update, nor an index that does not match the devices or playlists.
+ */
 public class AccountInformationCache {
 
-    private Map<String, Device> availableDevices;
-    private Map<String, PlaylistSimplified> savedPlaylists;
-    private User user;
+    private final Logger logger = LoggerFactory.getLogger(AccountInformationCache.class);
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(null,
+            Collections.emptyMap(), new NameIndex<>(), Collections.emptyMap(), Collections.emptyList(),
+            new NameIndex<>()));
 
     public AccountInformationCache() {
-        this.availableDevices = new ConcurrentHashMap<>();
-        this.savedPlaylists = new ConcurrentHashMap<>();
     }
 
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Returns the available devices by name. The map is immutable.
+     */
     public Map<String, Device> getAvailableDevices() {
-        return this.availableDevices;
+        return snapshot.get().availableDevices;
     }
 
     public void setAvailableDevices(Map<String, Device> devices) {
-        this.availableDevices = devices;
+        Snapshot current = snapshot.get();
+        NameIndex<Device> devicesIndex = new NameIndex<>(current.devicesIndex);
+        devicesIndex.retainAll(devices.keySet());
+        for (Device device : devices.values()) {
+            devicesIndex.put(device.getName(), device.getName(), device);
+        }
+        snapshot.set(new Snapshot(current.user, Collections.unmodifiableMap(new LinkedHashMap<>(devices)),
+                devicesIndex, current.savedPlaylists, current.savedPlaylistsOrder, current.playlistsIndex));
+    }
+
+    /**
+     * Adds a device that was not reported by the devices polling, like a newly active one.
+     */
+    public void addAvailableDevice(Device device) {
+        Snapshot current = snapshot.get();
+        Map<String, Device> devices = new LinkedHashMap<>(current.availableDevices);
+        devices.put(device.getName(), device);
+        NameIndex<Device> devicesIndex = new NameIndex<>(current.devicesIndex);
+        devicesIndex.put(device.getName(), device.getName(), device);
+        snapshot.set(new Snapshot(current.user, Collections.unmodifiableMap(devices), devicesIndex,
+                current.savedPlaylists, current.savedPlaylistsOrder, current.playlistsIndex));
     }
 
+    /**
+     * Returns the available device with the given name or, if there is none, the best approximate match.
+     *
+     * @return the device, or null if no device matches the name
+     */
+    public Device findDevice(String deviceName) {
+        Snapshot current = snapshot.get();
+        Device device = current.availableDevices.get(deviceName);
+        return device != null ? device : current.devicesIndex.find(deviceName);
+    }
+
+    /**
+     * Returns the saved playlists by ID. The map is immutable.
+     */
     public Map<String, PlaylistSimplified> getSavedPlaylists() {
-        return this.savedPlaylists;
+        return snapshot.get().savedPlaylists;
     }
 
     public void setSavedPlaylists(Map<String, PlaylistSimplified> playlists) {
-        this.savedPlaylists = playlists;
+        Snapshot current = snapshot.get();
+        NameIndex<PlaylistSimplified> playlistsIndex = new NameIndex<>();
+        for (PlaylistSimplified playlist : playlists.values()) {
+            playlistsIndex.put(playlist.getId(), playlist.getName(), playlist);
+        }
+        snapshot.set(new Snapshot(current.user, current.availableDevices, current.devicesIndex,
+                Collections.unmodifiableMap(new LinkedHashMap<>(playlists)),
+                Collections.unmodifiableList(new ArrayList<>(playlists.keySet())), playlistsIndex));
+    }
+
+    /**
+     * Applies the complete list of the user's playlists, only touching the playlists that were added, removed
+     * or changed (different snapshot ID or name) since the previous update.
+     *
+     * @return whether any playlist was added, removed or changed
+     */
+    public boolean updateSavedPlaylists(List<PlaylistSimplified> playlists) {
+        Snapshot current = snapshot.get();
+        Map<String, PlaylistSimplified> savedPlaylists = new LinkedHashMap<>(current.savedPlaylists);
+        Set<String> playlistIds = new HashSet<>();
+        List<String> playlistsOrder = new ArrayList<>(playlists.size());
+        List<PlaylistSimplified> indexUpdates = new ArrayList<>();
+        int added = 0;
+        int changed = 0;
+
+        for (PlaylistSimplified playlist : playlists) {
+            playlistIds.add(playlist.getId());
+            playlistsOrder.add(playlist.getId());
+            PlaylistSimplified savedPlaylist = savedPlaylists.get(playlist.getId());
+            if (savedPlaylist == null) {
+                savedPlaylists.put(playlist.getId(), playlist);
+                indexUpdates.add(playlist);
+                added++;
+            } else if (!Objects.equals(savedPlaylist.getSnapshotId(), playlist.getSnapshotId())
+                    || !Objects.equals(savedPlaylist.getName(), playlist.getName())) {
+                savedPlaylists.put(playlist.getId(), playlist);
+                indexUpdates.add(playlist);
+                changed++;
+            }
+        }
+
+        int sizeBeforeRemoval = savedPlaylists.size();
+        savedPlaylists.keySet().retainAll(playlistIds);
+        int removed = sizeBeforeRemoval - savedPlaylists.size();
+
+        boolean reordered = !playlistsOrder.equals(current.savedPlaylistsOrder);
+        if (added + changed + removed > 0 || reordered) {
+            NameIndex<PlaylistSimplified> playlistsIndex = current.playlistsIndex;
+            if (added + changed + removed > 0) {
+                playlistsIndex = new NameIndex<>(playlistsIndex);
+                for (PlaylistSimplified playlist : indexUpdates) {
+                    playlistsIndex.put(playlist.getId(), playlist.getName(), playlist);
+                }
+                playlistsIndex.retainAll(playlistIds);
+            }
+            snapshot.set(new Snapshot(current.user, current.availableDevices, current.devicesIndex,
+                    Collections.unmodifiableMap(savedPlaylists), Collections.unmodifiableList(playlistsOrder),
+                    playlistsIndex));
+        }
+
+        logger.debug("Playlists updated: {} added, {} changed, {} removed", added, changed, removed);
+        return added + changed + removed > 0 || reordered;
+    }
+
+    /**
+     * Returns the saved playlists in the order of the last update.
+     */
+    public List<PlaylistSimplified> getSavedPlaylistsInOrder() {
+        return snapshot.get().getSavedPlaylistsInOrder();
+    }
+
+    /**
+     * Returns the first saved playlist with the given name, or null if there is none.
+     */
+    public PlaylistSimplified getSavedPlaylistByName(String playlistName) {
+        return getSavedPlaylistByName(snapshot.get(), playlistName);
+    }
+
+    private PlaylistSimplified getSavedPlaylistByName(Snapshot current, String playlistName) {
+        for (PlaylistSimplified playlist : current.savedPlaylists.values()) {
+            if (playlistName.equals(playlist.getName())) {
+                return playlist;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the saved playlist with the given name or, if there is none, the best approximate match.
+     *
+     * @return the playlist, or null if no playlist matches the name
+     */
+    public PlaylistSimplified findSavedPlaylist(String playlistName) {
+        Snapshot current = snapshot.get();
+        PlaylistSimplified playlist = getSavedPlaylistByName(current, playlistName);
+        return playlist != null ? playlist : current.playlistsIndex.find(playlistName);
+    }
+
+    /**
+     * Returns the saved playlists matching the given name, best match first.
+     */
+    public List<PlaylistSimplified> searchSavedPlaylists(String playlistName, int maxResults) {
+        return snapshot.get().playlistsIndex.search(playlistName, maxResults);
     }
 
     public User getUser() {
-        return this.user;
+        return snapshot.get().user;
     }
 
     public void setUser(User user) {
-        this.user = user;
+        Snapshot current = snapshot.get();
+        snapshot.set(new Snapshot(user, current.availableDevices, current.devicesIndex, current.savedPlaylists,
+                current.savedPlaylistsOrder, current.playlistsIndex));
+    }
+
+    /**
+     * The user, devices and playlists of an account at one point in time. The name indexes are not modified once
+     * they are part of a snapshot: an update indexes the changes in a copy.
+     */
+    public static final class Snapshot {
+        private final User user;
+        private final Map<String, Device> availableDevices;
+        private final NameIndex<Device> devicesIndex;
+        private final Map<String, PlaylistSimplified> savedPlaylists;
+        private final List<String> savedPlaylistsOrder;
+        private final NameIndex<PlaylistSimplified> playlistsIndex;
+
+        private Snapshot(User user, Map<String, Device> availableDevices, NameIndex<Device> devicesIndex,
+                Map<String, PlaylistSimplified> savedPlaylists, List<String> savedPlaylistsOrder,
+                NameIndex<PlaylistSimplified> playlistsIndex) {
+            this.user = user;
+            this.availableDevices = availableDevices;
+            this.devicesIndex = devicesIndex;
+            this.savedPlaylists = savedPlaylists;
+            this.savedPlaylistsOrder = savedPlaylistsOrder;
+            this.playlistsIndex = playlistsIndex;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public Map<String, Device> getAvailableDevices() {
+            return availableDevices;
+        }
+
+        public List<PlaylistSimplified> getSavedPlaylistsInOrder() {
+            List<PlaylistSimplified> playlists = new ArrayList<>(savedPlaylistsOrder.size());
+            for (String playlistId : savedPlaylistsOrder) {
+                PlaylistSimplified playlist = savedPlaylists.get(playlistId);
+                if (playlist != null) {
+                    playlists.add(playlist);
+                }
+            }
+            return playlists;
+        }
     }
 
 }
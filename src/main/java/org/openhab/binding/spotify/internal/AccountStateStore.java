@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.wrapper.spotify.model_objects.miscellaneous.Device;
+import com.wrapper.spotify.model_objects.specification.PlaylistSimplified;
+import com.wrapper.spotify.model_objects.specification.User;
+
+/**
+ * The {@link AccountStateStore} persists the user profile, the available devices, the user's playlists and the
+ * last playback information of a Spotify account to a compact JSON file in the openHAB userdata folder.
+ * The state is loaded when the thing is initialized, so the devices and playlists are available right away,
+ * and the polls revalidate it in the background. The file is deleted when the thing is removed.
+ *
+ * @author agent - Initial contribution
+ */
+public class AccountStateStore {
+
+    private static final String STORE_FOLDER = "spotify";
+
+    private final Logger logger = LoggerFactory.getLogger(AccountStateStore.class);
+
+    private final Gson gson = new Gson();
+    private final Path file;
+    private boolean deleted;
+
+    public AccountStateStore(String thingUID) {
+        this.file = new File(ConfigConstants.getUserDataFolder() + File.separator + STORE_FOLDER,
+                thingUID.replace(':', '_') + ".json").toPath();
+    }
+
+    /**
+     * Loads the stored state into the given caches.
+     *
+     * @return whether a stored state was found and loaded
+     */
+    public boolean load(PlaybackInformationCache playbackInfo, AccountInformationCache accountInfo) {
+        if (!Files.isRegularFile(file)) {
+            logger.debug("No stored account state found at {}", file);
+            return false;
+        }
+
+        StoredAccountState state;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            state = gson.fromJson(reader, StoredAccountState.class);
+        } catch (IOException | JsonParseException e) {
+            logger.warn("Error loading the stored account state from {}: {}", file, e.getMessage());
+            return false;
+        }
+        if (state == null) {
+            return false;
+        }
+
+        if (state.user != null) {
+            accountInfo.setUser(new User.Builder().setId(state.user.id).setDisplayName(state.user.displayName).build());
+        }
+
+        if (state.devices != null) {
+            Map<String, Device> devices = new LinkedHashMap<>();
+            for (StoredDevice device : state.devices) {
+                devices.put(device.name, new Device.Builder().setId(device.id).setName(device.name)
+                        .setType(device.type).setVolume_percent(device.volume).build());
+            }
+            accountInfo.setAvailableDevices(devices);
+        }
+
+        if (state.playlists != null) {
+            List<PlaylistSimplified> playlists = new ArrayList<>(state.playlists.size());
+            for (StoredPlaylist playlist : state.playlists) {
+                playlists.add(new PlaylistSimplified.Builder().setId(playlist.id).setName(playlist.name)
+                        .setSnapshotId(playlist.snapshotId).setUri(playlist.uri).build());
+            }
+            accountInfo.updateSavedPlaylists(playlists);
+        }
+
+        StoredPlayback playback = state.playback;
+        if (playback != null) {
+            // The stored progress is not advanced locally until a poll confirms that the track is still playing
+            playbackInfo.setSnapshot(new PlaybackSnapshot.Builder().setTrackTitle(playback.trackTitle)
+                    .setTrackArtist(playback.trackArtist).setTrackAlbum(playback.trackAlbum)
+                    .setTrackDuration(playback.trackDuration).setTrackProgressMs(playback.trackProgressMs)
+                    .setDeviceName(playback.deviceName).setDeviceVolume(playback.deviceVolume).setIsPlaying(false)
+                    .build(), true);
+        }
+
+        logger.debug("Stored account state loaded from {}", file);
+        return true;
+    }
+
+    /**
+     * Stores the current content of the given caches, replacing the previously stored state.
+     */
+    public synchronized void save(PlaybackInformationCache playbackInfo, AccountInformationCache accountInfo) {
+        if (deleted) {
+            return;
+        }
+        StoredAccountState state = new StoredAccountState();
+        // One snapshot of each cache, so the stored state is consistent even while the polls update them
+        AccountInformationCache.Snapshot account = accountInfo.getSnapshot();
+        PlaybackSnapshot playback = playbackInfo.getSnapshot();
+
+        User user = account.getUser();
+        if (user != null) {
+            state.user = new StoredUser();
+            state.user.id = user.getId();
+            state.user.displayName = user.getDisplayName();
+        }
+
+        state.devices = new ArrayList<>();
+        for (Device device : account.getAvailableDevices().values()) {
+            StoredDevice storedDevice = new StoredDevice();
+            storedDevice.id = device.getId();
+            storedDevice.name = device.getName();
+            storedDevice.type = device.getType();
+            storedDevice.volume = device.getVolume_percent();
+            state.devices.add(storedDevice);
+        }
+
+        state.playlists = new ArrayList<>();
+        for (PlaylistSimplified playlist : account.getSavedPlaylistsInOrder()) {
+            StoredPlaylist storedPlaylist = new StoredPlaylist();
+            storedPlaylist.id = playlist.getId();
+            storedPlaylist.name = playlist.getName();
+            storedPlaylist.snapshotId = playlist.getSnapshotId();
+            storedPlaylist.uri = playlist.getUri();
+            state.playlists.add(storedPlaylist);
+        }
+
+        state.playback = new StoredPlayback();
+        state.playback.trackTitle = playback.getTrackTitle();
+        state.playback.trackArtist = playback.getTrackArtist();
+        state.playback.trackAlbum = playback.getTrackAlbum();
+        state.playback.trackDuration = playback.getTrackDuration();
+        state.playback.trackProgressMs = playbackInfo.getInterpolatedTrackProgressMs();
+        state.playback.deviceName = playback.getDeviceName();
+        state.playback.deviceVolume = playback.getDeviceVolume();
+
+        try {
+            Files.createDirectories(file.getParent());
+            // Written next to the store and moved over it, so a crash never leaves a truncated file behind
+            Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+                gson.toJson(state, writer);
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Account state stored to {}", file);
+        } catch (IOException e) {
+            logger.warn("Error storing the account state to {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the stored state, which holds the user's profile, devices and playlists. Later saves are ignored.
+     */
+    public synchronized void delete() {
+        deleted = true;
+        try {
+            if (Files.deleteIfExists(file)) {
+                logger.debug("Account state {} deleted", file);
+            }
+        } catch (IOException e) {
+            logger.warn("Error deleting the account state {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static class StoredAccountState {
+        StoredUser user;
+        List<StoredDevice> devices;
+        List<StoredPlaylist> playlists;
+        StoredPlayback playback;
+    }
+
+    private static class StoredUser {
+        String id;
+        String displayName;
+    }
+
+    private static class StoredDevice {
+        String id;
+        String name;
+        String type;
+        Integer volume;
+    }
+
+    private static class StoredPlaylist {
+        String id;
+        String name;
+        String snapshotId;
+        String uri;
+    }
+
+    private static class StoredPlayback {
+        String trackTitle;
+        String trackArtist;
+        String trackAlbum;
+        Integer trackDuration;
+        Integer trackProgressMs;
+        String deviceName;
+        Integer deviceVolume;
+    }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+
+import com.wrapper.spotify.IHttpManager;
+import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+
+/**
+ * The {@link BaseUriHttpManager} sends the requests of both the Web API and the accounts service to another
+ * base URI, like the SpotifyWebApiSimulator of the org.openhab.binding.spotify.test fragment. It is meant for
+ * testing only. The library builds the token requests with a fixed accounts.spotify.com address, so the scheme,
+ * host and port are replaced here instead of in the {@link com.wrapper.spotify.SpotifyApi} builder. The path and
+ * query are kept.
+ *
+ * @author agent - Initial contribution
+ */
+public class BaseUriHttpManager implements IHttpManager {
+
+    private final URI baseUri;
+    private final IHttpManager delegate;
+
+    public BaseUriHttpManager(URI baseUri, IHttpManager delegate) {
+        this.baseUri = baseUri;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String get(URI uri, Header[] headers) throws IOException, SpotifyWebApiException {
+        return delegate.get(rewrite(uri), headers);
+    }
+
+    @Override
+    public String post(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return delegate.post(rewrite(uri), headers, body);
+    }
+
+    @Override
+    public String put(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return delegate.put(rewrite(uri), headers, body);
+    }
+
+    @Override
+    public String delete(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return delegate.delete(rewrite(uri), headers, body);
+    }
+
+    private URI rewrite(URI uri) throws IOException {
+        try {
+            return new URI(baseUri.getScheme(), uri.getUserInfo(), baseUri.getHost(), baseUri.getPort(),
+                    uri.getPath(), uri.getQuery(), uri.getFragment());
+        } catch (URISyntaxException e) {
+            throw new IOException("Cannot send '" + uri + "' to '" + baseUri + "'", e);
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wrapper.spotify.IHttpManager;
+
+/**
+ * The {@link CircuitBreaker} holds a circuit per Web API endpoint of one account. A circuit opens after
+ * consecutive failures of its endpoint (network errors, expired deadlines and 5xx answers); while it is open, the
+ * requests to the endpoint fail right away with a {@link CircuitOpenException} instead of waiting for their
+ * deadline. Once the open time has elapsed the circuit is half-open: the next request is sent as a probe, and
+ * closes the circuit if it succeeds or opens it again for twice as long if it fails. The circuits are enforced by
+ * the http manager returned by {@link #createHttpManager}.
+ *
+ * @author agent - Initial contribution
+ */
+public class CircuitBreaker {
+
+    /** Consecutive failures of an endpoint that open its circuit. */
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final long MIN_OPEN_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final long MAX_OPEN_MS = TimeUnit.MINUTES.toMillis(5);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+    private final Runnable listener;
+
+    /**
+     * @param listener notified when a circuit opens or closes
+     */
+    public CircuitBreaker(Runnable listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns an http manager that sends the requests through the circuits of their endpoints.
+     */
+    public IHttpManager createHttpManager(IHttpManager delegate) {
+        return new CircuitBreakerHttpManager(delegate, this);
+    }
+
+    /**
+     * Lets a request to the endpoint through, as a probe if the circuit is due for one.
+     *
+     * @param endpoint the method and path of the request, e.g. <code>GET /v1/me/player</code>
+     * @throws CircuitOpenException if the circuit of the endpoint is open
+     */
+    void acquire(String endpoint) throws CircuitOpenException {
+        Circuit circuit = circuits.computeIfAbsent(endpoint, e -> new Circuit());
+        long retryAfterMs = circuit.tryAcquire();
+        if (retryAfterMs > 0) {
+            throw new CircuitOpenException(String.format("Circuit of '%s' is open, retry in %d s", endpoint,
+                    TimeUnit.MILLISECONDS.toSeconds(retryAfterMs + 999)), retryAfterMs);
+        }
+    }
+
+    /**
+     * Records a request the endpoint answered, even with a client error.
+     */
+    void recordSuccess(String endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        if (circuit != null && circuit.onSuccess()) {
+            logger.info("Spotify Web API endpoint '{}' recovered, closing its circuit", endpoint);
+            listener.run();
+        }
+    }
+
+    /**
+     * Records a request the endpoint did not answer, or answered with a server error.
+     */
+    void recordFailure(String endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        if (circuit == null) {
+            return;
+        }
+        long openMs = circuit.onFailure();
+        if (openMs > 0) {
+            logger.warn("Spotify Web API endpoint '{}' is failing, opening its circuit for {} s", endpoint,
+                    TimeUnit.MILLISECONDS.toSeconds(openMs));
+            listener.run();
+        }
+    }
+
+    /**
+     * Records a request whose outcome says nothing about the endpoint, like one rejected by the request budget.
+     */
+    void recordIgnored(String endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        if (circuit != null) {
+            circuit.onIgnored();
+        }
+    }
+
+    public State getState(String endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        return circuit != null ? circuit.getState() : State.CLOSED;
+    }
+
+    /**
+     * Returns the endpoints whose circuit is not closed, in alphabetical order.
+     */
+    public Set<String> getOpenEndpoints() {
+        Set<String> openEndpoints = new TreeSet<>();
+        for (Map.Entry<String, Circuit> entry : circuits.entrySet()) {
+            if (entry.getValue().getState() != State.CLOSED) {
+                openEndpoints.add(entry.getKey());
+            }
+        }
+        return openEndpoints;
+    }
+
+    /**
+     * The circuit of one endpoint.
+     */
+    private static class Circuit {
+        private State state = State.CLOSED;
+        private int failures;
+        private long openMs = MIN_OPEN_MS;
+        private long probeAt;
+
+        /**
+         * @return 0 if the request may be sent, otherwise the time (in ms) until the next probe
+         */
+        synchronized long tryAcquire() {
+            switch (state) {
+                case OPEN:
+                    long remainingNanos = probeAt - System.nanoTime();
+                    if (remainingNanos > 0) {
+                        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+                    }
+                    state = State.HALF_OPEN;
+                    return 0;
+                case HALF_OPEN:
+                    // The probe is still running
+                    return openMs;
+                default:
+                    return 0;
+            }
+        }
+
+        /**
+         * @return whether the circuit was closed by this success
+         */
+        synchronized boolean onSuccess() {
+            failures = 0;
+            if (state == State.CLOSED) {
+                return false;
+            }
+            state = State.CLOSED;
+            openMs = MIN_OPEN_MS;
+            return true;
+        }
+
+        /**
+         * @return the time (in ms) the circuit was opened for by this failure, 0 if it was not
+         */
+        synchronized long onFailure() {
+            switch (state) {
+                case HALF_OPEN:
+                    openMs = Math.min(2 * openMs, MAX_OPEN_MS);
+                    open();
+                    return openMs;
+                case CLOSED:
+                    failures++;
+                    if (failures >= FAILURE_THRESHOLD) {
+                        open();
+                        return openMs;
+                    }
+                    return 0;
+                default:
+                    // A request sent before the circuit opened
+                    return 0;
+            }
+        }
+
+        synchronized void onIgnored() {
+            if (state == State.HALF_OPEN) {
+                // The probe did not reach the endpoint, the next request probes again
+                state = State.OPEN;
+            }
+        }
+
+        synchronized State getState() {
+            return state;
+        }
+
+        private void open() {
+            state = State.OPEN;
+            failures = 0;
+            probeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(openMs);
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+
+import com.wrapper.spotify.IHttpManager;
+import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+import com.wrapper.spotify.exceptions.detailed.BadGatewayException;
+import com.wrapper.spotify.exceptions.detailed.InternalServerErrorException;
+import com.wrapper.spotify.exceptions.detailed.ServiceUnavailableException;
+import com.wrapper.spotify.exceptions.detailed.TooManyRequestsException;
+
+/**
+ * The {@link CircuitBreakerHttpManager} sends every request through the circuit of its endpoint in the
+ * {@link CircuitBreaker} of the account, and reports the outcome of the request to it. It sits above the hedging,
+ * budget and deadline managers, so a request rejected by an open circuit takes no budget and fails without
+ * waiting, and a hedged request counts once.
+ *
+ * @author agent - Initial contribution
+ */
+public class CircuitBreakerHttpManager implements IHttpManager {
+
+    private final IHttpManager delegate;
+    private final CircuitBreaker circuitBreaker;
+
+    public CircuitBreakerHttpManager(IHttpManager delegate, CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public String get(URI uri, Header[] headers) throws IOException, SpotifyWebApiException {
+        return execute("GET " + uri.getPath(), () -> delegate.get(uri, headers));
+    }
+
+    @Override
+    public String post(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return execute("POST " + uri.getPath(), () -> delegate.post(uri, headers, body));
+    }
+
+    @Override
+    public String put(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return execute("PUT " + uri.getPath(), () -> delegate.put(uri, headers, body));
+    }
+
+    @Override
+    public String delete(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return execute("DELETE " + uri.getPath(), () -> delegate.delete(uri, headers, body));
+    }
+
+    private String execute(String endpoint, RateLimitedHttpManager.HttpCall call)
+            throws IOException, SpotifyWebApiException {
+        circuitBreaker.acquire(endpoint);
+        try {
+            String body = call.execute();
+            circuitBreaker.recordSuccess(endpoint);
+            return body;
+        } catch (TooManyRequestsException | RequestBudgetExhaustedException e) {
+            // Rate limited by the Web API or locally, which says nothing about the health of the endpoint
+            circuitBreaker.recordIgnored(endpoint);
+            throw e;
+        } catch (InternalServerErrorException | BadGatewayException | ServiceUnavailableException e) {
+            circuitBreaker.recordFailure(endpoint);
+            throw e;
+        } catch (SpotifyWebApiException e) {
+            circuitBreaker.recordSuccess(endpoint);
+            throw e;
+        } catch (IOException e) {
+            circuitBreaker.recordFailure(endpoint);
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.recordIgnored(endpoint);
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+
+/**
+ * The {@link CircuitOpenException} is thrown for a request that was not sent because the circuit of its endpoint
+ * is open (see {@link CircuitBreaker}).
+ *
+ * @author agent - Initial contribution
+ */
+public class CircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMs;
+
+    public CircuitOpenException(String message, long retryAfterMs) {
+        super(message);
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * Returns the time (in ms) until the circuit lets a probe request through.
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+}
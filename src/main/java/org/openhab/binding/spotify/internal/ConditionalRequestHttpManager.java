@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wrapper.spotify.IHttpManager;
+import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+
+/**
+ * The {@link ConditionalRequestHttpManager} keeps the last responses of the profile, devices and playlists GET
+ * requests of one account, which rarely change between two polls, and revalidates them with If-None-Match,
+ * honoring the Cache-Control max-age of the Web API. A cached response is returned when the Web API answers 304
+ * (Not Modified), and {@link #isNotModified()} tells the calling thread that the response it just got is
+ * unchanged, so that it can skip parsing it. At most {@link #MAX_ENTRIES} responses (one per page of the
+ * playlists) are kept, the least recently used one is dropped first. Other requests are handed to the delegate
+ * manager.
+ *
+ * @author agent - Initial contribution
+ */
+public class ConditionalRequestHttpManager implements IHttpManager {
+
+    private final Logger logger = LoggerFactory.getLogger(ConditionalRequestHttpManager.class);
+
+    private static final ThreadLocal<Boolean> NOT_MODIFIED = ThreadLocal.withInitial(() -> false);
+
+    /** Paths of the endpoints whose responses are cached. */
+    private static final List<String> CACHED_PATHS = Arrays.asList("/v1/me", "/v1/me/player/devices",
+            "/v1/me/playlists");
+    static final int MAX_ENTRIES = 32;
+
+    private final CloseableHttpClient httpClient;
+    private final IHttpManager delegate;
+    private final Map<URI, CacheEntry> entries = Collections
+            .synchronizedMap(new LinkedHashMap<URI, CacheEntry>(MAX_ENTRIES, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<URI, CacheEntry> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+
+    public ConditionalRequestHttpManager(CloseableHttpClient httpClient, IHttpManager delegate) {
+        this.httpClient = httpClient;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns whether the last GET request of the calling thread was answered from the cache.
+     */
+    public static boolean isNotModified() {
+        return NOT_MODIFIED.get();
+    }
+
+    /**
+     * Sets the not modified flag of the calling thread, e.g. to the one of a hedged attempt that answered on
+     * another thread.
+     */
+    static void setNotModified(boolean notModified) {
+        NOT_MODIFIED.set(notModified);
+    }
+
+    @Override
+    public String get(URI uri, Header[] headers) throws IOException, SpotifyWebApiException {
+        NOT_MODIFIED.set(false);
+        if (!CACHED_PATHS.contains(uri.getPath())) {
+            return delegate.get(uri, headers);
+        }
+
+        CacheEntry entry = entries.get(uri);
+        if (entry != null && entry.isFresh()) {
+            logger.trace("Response of '{}' is still fresh, not sending the request", uri.getPath());
+            NOT_MODIFIED.set(true);
+            return entry.body;
+        }
+
+        HttpGet httpGet = new HttpGet(uri);
+        httpGet.setHeaders(headers);
+        if (entry != null && entry.etag != null) {
+            httpGet.setHeader(HttpHeaders.IF_NONE_MATCH, entry.etag);
+        }
+
+        InFlightRequest.attach(httpGet);
+        try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+            long maxAgeMs = getMaxAgeMs(response);
+
+            if (entry != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                logger.trace("Response of '{}' not modified", uri.getPath());
+                entries.put(uri, new CacheEntry(entry.etag, entry.body, maxAgeMs));
+                NOT_MODIFIED.set(true);
+                return entry.body;
+            }
+
+            String body = SpotifyHttpResponses.getResponseBody(response);
+            Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+            if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK && body != null && maxAgeMs >= 0
+                    && (etag != null || maxAgeMs > 0)) {
+                entries.put(uri, new CacheEntry(etag != null ? etag.getValue() : null, body, maxAgeMs));
+            } else {
+                entries.remove(uri);
+            }
+            return body;
+        }
+    }
+
+    @Override
+    public String post(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return delegate.post(uri, headers, body);
+    }
+
+    @Override
+    public String put(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return delegate.put(uri, headers, body);
+    }
+
+    @Override
+    public String delete(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return delegate.delete(uri, headers, body);
+    }
+
+    /**
+     * Returns the max-age (in ms) of the response, 0 if it must be revalidated and -1 if it must not be stored.
+     */
+    private long getMaxAgeMs(CloseableHttpResponse response) {
+        long maxAgeMs = 0;
+        for (Header header : response.getHeaders(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : header.getValue().split(",")) {
+                String value = directive.trim().toLowerCase();
+                if (value.equals("no-store")) {
+                    return -1;
+                } else if (value.startsWith("max-age=")) {
+                    try {
+                        maxAgeMs = TimeUnit.SECONDS.toMillis(Long.parseLong(value.substring(8)));
+                    } catch (NumberFormatException e) {
+                        maxAgeMs = 0;
+                    }
+                }
+            }
+        }
+        return maxAgeMs;
+    }
+
+    private static class CacheEntry {
+        private final String etag;
+        private final String body;
+        private final long expiresAt;
+
+        CacheEntry(String etag, String body, long maxAgeMs) {
+            this.etag = etag;
+            this.body = body;
+            this.expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxAgeMs));
+        }
+
+        boolean isFresh() {
+            return expiresAt - System.nanoTime() > 0;
+        }
+    }
+
+}
@@ -0,0 +1,244 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.wrapper.spotify.model_objects.miscellaneous.Device;
+
+/**
+ * The {@link CurrentPlaybackDecoder} decodes the response of the currently playing endpoint
+ * (<code>/v1/me/player</code>) with a streaming {@link JsonReader}. Only the fields used by the binding are read;
+ * everything else (images, available markets, external IDs...) is skipped without building any object.
+ * The decoder reuses its buffer from one poll to the next, so the polls of an account are decoded one at a time.
+ *
+ * @author agent - Initial contribution
+ */
+public class CurrentPlaybackDecoder {
+
+    private static final char ARTIST_SEPARATOR = ',';
+
+    private final StringBuilder artistBuffer = new StringBuilder();
+
+    /**
+     * Decodes the currently playing response.
+     *
+     * @param json the response body
+     * @param previous the previous snapshot, whose strings are reused when they did not change
+     * @return the decoded playback, or null if nothing is playing
+     * @throws IOException if the response is not valid JSON
+     */
+    public synchronized CurrentPlayback decode(String json, PlaybackSnapshot previous) throws IOException {
+        if (json == null || json.trim().isEmpty()) {
+            return null;
+        }
+
+        PlaybackSnapshot.Builder snapshot = new PlaybackSnapshot.Builder();
+        Device device = null;
+        boolean hasItem = false;
+
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "progress_ms":
+                        snapshot.setTrackProgressMs(nextInteger(reader));
+                        break;
+                    case "is_playing":
+                        snapshot.setIsPlaying(nextBoolean(reader));
+                        break;
+                    case "device":
+                        device = readDevice(reader);
+                        break;
+                    case "item":
+                        hasItem = readItem(reader, snapshot, previous);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException e) {
+            throw new IOException("Unexpected currently playing response: " + e.getMessage(), e);
+        }
+
+        if (!hasItem || device == null || device.getName() == null) {
+            return null;
+        }
+        snapshot.setDeviceName(device.getName()).setDeviceVolume(device.getVolume_percent());
+        return new CurrentPlayback(snapshot.build(), device);
+    }
+
+    private boolean readItem(JsonReader reader, PlaybackSnapshot.Builder snapshot, PlaybackSnapshot previous)
+            throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return false;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name":
+                    snapshot.setTrackTitle(nextString(reader));
+                    break;
+                case "duration_ms":
+                    snapshot.setTrackDuration(nextInteger(reader));
+                    break;
+                case "album":
+                    snapshot.setTrackAlbum(readName(reader));
+                    break;
+                case "artists":
+                    snapshot.setTrackArtist(readArtists(reader, previous.getTrackArtist()));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return true;
+    }
+
+    /**
+     * Joins the artist names with commas in the reused buffer. The previous value is returned if it is equal.
+     */
+    private String readArtists(JsonReader reader, String previous) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        artistBuffer.setLength(0);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String name = readName(reader);
+            if (name != null) {
+                if (artistBuffer.length() > 0) {
+                    artistBuffer.append(ARTIST_SEPARATOR);
+                }
+                artistBuffer.append(name);
+            }
+        }
+        reader.endArray();
+        if (previous != null && previous.contentEquals(artistBuffer)) {
+            return previous;
+        }
+        return artistBuffer.toString();
+    }
+
+    private Device readDevice(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        Device.Builder device = new Device.Builder();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    device.setId(nextString(reader));
+                    break;
+                case "name":
+                    device.setName(nextString(reader));
+                    break;
+                case "type":
+                    device.setType(nextString(reader));
+                    break;
+                case "volume_percent":
+                    device.setVolume_percent(nextInteger(reader));
+                    break;
+                case "is_active":
+                    device.setIs_active(nextBoolean(reader));
+                    break;
+                case "is_restricted":
+                    device.setIs_restricted(nextBoolean(reader));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return device.build();
+    }
+
+    /**
+     * Reads the "name" field of an object, skipping the rest of it.
+     */
+    private String readName(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        String name = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("name".equals(reader.nextName())) {
+                name = nextString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return name;
+    }
+
+    private String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private Integer nextInteger(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextInt();
+    }
+
+    private Boolean nextBoolean(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextBoolean();
+    }
+
+    /**
+     * The currently playing information decoded from a response.
+     */
+    public static final class CurrentPlayback {
+        private final PlaybackSnapshot snapshot;
+        private final Device device;
+
+        CurrentPlayback(PlaybackSnapshot snapshot, Device device) {
+            this.snapshot = snapshot;
+            this.device = device;
+        }
+
+        public PlaybackSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        public Device getDevice() {
+            return device;
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ScheduledFuture;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.impl.execchain.RequestAbortedException;
+
+import com.wrapper.spotify.IHttpManager;
+import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+
+/**
+ * The {@link DeadlineHttpManager} bounds the total time of every request handed to the delegate manager. The
+ * socket timeouts of the {@link SpotifyHttpTransport} only bound each read, so a connection that trickles data
+ * or waits for a pooled connection could otherwise hold a request, and the poll waiting for it, forever. When the
+ * deadline of the endpoint (see {@link RequestDeadlines}) expires, the request is aborted through its
+ * {@link InFlightRequest} and fails with a {@link RequestAbortedException}.
+ *
+ * @author agent - Initial contribution
+ */
+public class DeadlineHttpManager implements IHttpManager {
+
+    private final IHttpManager delegate;
+    private final RequestDeadlines deadlines;
+    private final SpotifyRequestExecutor requestExecutor;
+
+    public DeadlineHttpManager(IHttpManager delegate, RequestDeadlines deadlines,
+            SpotifyRequestExecutor requestExecutor) {
+        this.delegate = delegate;
+        this.deadlines = deadlines;
+        this.requestExecutor = requestExecutor;
+    }
+
+    @Override
+    public String get(URI uri, Header[] headers) throws IOException, SpotifyWebApiException {
+        return execute("GET", uri, () -> delegate.get(uri, headers));
+    }
+
+    @Override
+    public String post(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return execute("POST", uri, () -> delegate.post(uri, headers, body));
+    }
+
+    @Override
+    public String put(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return execute("PUT", uri, () -> delegate.put(uri, headers, body));
+    }
+
+    @Override
+    public String delete(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return execute("DELETE", uri, () -> delegate.delete(uri, headers, body));
+    }
+
+    private String execute(String method, URI uri, RateLimitedHttpManager.HttpCall call)
+            throws IOException, SpotifyWebApiException {
+        long deadlineMs = deadlines.getDeadlineMs(uri.getPath());
+        // A hedging manager above may already have started the request of this thread
+        boolean owner = !InFlightRequest.isActive();
+        InFlightRequest inFlight = InFlightRequest.current();
+        ScheduledFuture<?> timeout = requestExecutor.schedule(() -> inFlight
+                .abort(String.format("Deadline of %d ms exceeded by %s %s", deadlineMs, method, uri.getPath())),
+                deadlineMs);
+        try {
+            return call.execute();
+        } catch (IOException e) {
+            String abortReason = inFlight.getAbortReason();
+            if (abortReason != null) {
+                throw new RequestAbortedException(abortReason, e);
+            }
+            throw e;
+        } finally {
+            timeout.cancel(false);
+            if (owner) {
+                InFlightRequest.end();
+            }
+        }
+    }
+
+}
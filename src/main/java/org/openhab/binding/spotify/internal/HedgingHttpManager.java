@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wrapper.spotify.IHttpManager;
+import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+
+/**
+ * The {@link HedgingHttpManager} cuts the tail latency of the GET requests, which are idempotent: when a GET
+ * request takes longer than the configured latency percentile of its endpoint (taken from the
+ * {@link SpotifyApiMetrics} of the account), a second attempt is sent on a hedge thread and the first answer
+ * wins. The losing attempt is superseded through its {@link InFlightRequest}, so it is not measured as a failure.
+ * Both attempts take their request from the rate-limit budget, and no hedge is sent when no hedge thread is free,
+ * so hedging never floods the Web API. The periodic polls, which nobody waits for, are not hedged. Other requests
+ * are handed to the delegate manager.
+ *
+ * @author agent - Initial contribution
+ */
+public class HedgingHttpManager implements IHttpManager {
+
+    /** Requests an endpoint needs before its latency percentile is trusted. */
+    private static final long MIN_REQUESTS = 20;
+    private static final long MIN_HEDGE_DELAY_MS = 100;
+    /** Safety bound for waiting on a hedged attempt, which is bounded by its own deadline anyway. */
+    private static final long MAX_HEDGE_WAIT_MS = 60000;
+
+    private final Logger logger = LoggerFactory.getLogger(HedgingHttpManager.class);
+
+    private final IHttpManager delegate;
+    private final SpotifyApiMetrics metrics;
+    private final SpotifyRequestExecutor requestExecutor;
+    private final int percentile;
+
+    /**
+     * @param percentile latency percentile (1-99) of an endpoint after which a GET request is hedged
+     */
+    public HedgingHttpManager(IHttpManager delegate, SpotifyApiMetrics metrics,
+            SpotifyRequestExecutor requestExecutor, int percentile) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.requestExecutor = requestExecutor;
+        this.percentile = percentile;
+    }
+
+    @Override
+    public String get(URI uri, Header[] headers) throws IOException, SpotifyWebApiException {
+        RequestPriority priority = SpotifyRequestExecutor.getCurrentPriority();
+        if (priority == RequestPriority.BACKGROUND) {
+            return delegate.get(uri, headers);
+        }
+        long hedgeDelayMs = metrics.getLatencyPercentileMs("GET " + uri.getPath(), percentile, MIN_REQUESTS);
+        if (hedgeDelayMs < 0) {
+            return delegate.get(uri, headers);
+        }
+
+        boolean owner = !InFlightRequest.isActive();
+        Hedge hedge = new Hedge(uri, headers, priority, InFlightRequest.current());
+        ScheduledFuture<?> hedgeTimer = requestExecutor.schedule(hedge::start,
+                Math.max(hedgeDelayMs, MIN_HEDGE_DELAY_MS));
+        try {
+            String body = delegate.get(uri, headers);
+            hedge.abort("First attempt answered first");
+            return body;
+        } catch (IOException | SpotifyWebApiException e) {
+            if (!hedge.preventStart()) {
+                throw e;
+            }
+            // The first attempt failed or was aborted because the hedged attempt answered first
+            return hedge.await(e);
+        } finally {
+            hedgeTimer.cancel(false);
+            if (owner) {
+                InFlightRequest.end();
+            }
+        }
+    }
+
+    @Override
+    public String post(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return delegate.post(uri, headers, body);
+    }
+
+    @Override
+    public String put(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return delegate.put(uri, headers, body);
+    }
+
+    @Override
+    public String delete(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return delegate.delete(uri, headers, body);
+    }
+
+    /**
+     * The second attempt of a GET request.
+     */
+    private class Hedge {
+        private final URI uri;
+        private final Header[] headers;
+        private final RequestPriority priority;
+        private final InFlightRequest firstAttempt;
+        private final CompletableFuture<Answer> answer = new CompletableFuture<>();
+
+        private boolean started;
+        private boolean cancelled;
+        private InFlightRequest attempt;
+        private String abortReason;
+
+        Hedge(URI uri, Header[] headers, RequestPriority priority, InFlightRequest firstAttempt) {
+            this.uri = uri;
+            this.headers = headers;
+            this.priority = priority;
+            this.firstAttempt = firstAttempt;
+        }
+
+        synchronized void start() {
+            if (cancelled) {
+                return;
+            }
+            started = requestExecutor.tryExecuteHedge(priority, this::run);
+            if (started) {
+                logger.debug("Request to '{}' is slow, sending a hedged attempt", uri.getPath());
+            } else {
+                logger.trace("No hedge thread free, not hedging the request to '{}'", uri.getPath());
+            }
+        }
+
+        /**
+         * Prevents the hedged attempt from starting.
+         *
+         * @return whether the hedged attempt had already started
+         */
+        synchronized boolean preventStart() {
+            cancelled = true;
+            return started;
+        }
+
+        /**
+         * Aborts the hedged attempt, now if it is running or as soon as it starts.
+         */
+        void abort(String reason) {
+            InFlightRequest runningAttempt;
+            synchronized (this) {
+                cancelled = true;
+                abortReason = reason;
+                runningAttempt = attempt;
+            }
+            if (runningAttempt != null) {
+                runningAttempt.supersede(reason);
+            }
+        }
+
+        String await(Exception firstAttemptFailure) throws IOException, SpotifyWebApiException {
+            try {
+                Answer hedgeAnswer = answer.get(MAX_HEDGE_WAIT_MS, TimeUnit.MILLISECONDS);
+                ConditionalRequestHttpManager.setNotModified(hedgeAnswer.notModified);
+                return hedgeAnswer.body;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the hedged attempt", e);
+            } catch (ExecutionException | TimeoutException e) {
+                logger.debug("Hedged attempt to '{}' failed too: {}", uri.getPath(), e.getMessage());
+                if (firstAttemptFailure instanceof SpotifyWebApiException) {
+                    throw (SpotifyWebApiException) firstAttemptFailure;
+                }
+                throw (IOException) firstAttemptFailure;
+            }
+        }
+
+        private void run() {
+            InFlightRequest hedgeAttempt = InFlightRequest.current();
+            String reason;
+            synchronized (this) {
+                attempt = hedgeAttempt;
+                reason = abortReason;
+            }
+            if (reason != null) {
+                hedgeAttempt.supersede(reason);
+            }
+            try {
+                String body = delegate.get(uri, headers);
+                answer.complete(new Answer(body, ConditionalRequestHttpManager.isNotModified()));
+                firstAttempt.supersede("Hedged attempt answered first");
+            } catch (IOException | SpotifyWebApiException | RuntimeException e) {
+                answer.completeExceptionally(e);
+            } finally {
+                InFlightRequest.end();
+            }
+        }
+    }
+
+    private static class Answer {
+        private final String body;
+        private final boolean notModified;
+
+        Answer(String body, boolean notModified) {
+            this.body = body;
+            this.notModified = notModified;
+        }
+    }
+
+}
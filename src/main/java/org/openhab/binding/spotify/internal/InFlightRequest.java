@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * The {@link InFlightRequest} is the Web API request running on the current thread. The http managers that send
+ * the request ({@link SpotifyHttpTransport} and {@link ConditionalRequestHttpManager}) attach the HTTP request to
+ * it, so another thread can abort a request that is blocked on the network: the {@link DeadlineHttpManager} when
+ * the deadline of the request expires, and the {@link HedgingHttpManager} when a hedged attempt answered first.
+ * A request aborted by hedging is superseded: its failure says nothing about the endpoint, so it is not measured.
+ *
+ * @author agent - Initial contribution
+ */
+public class InFlightRequest {
+
+    private static final ThreadLocal<InFlightRequest> CURRENT = new ThreadLocal<>();
+
+    private HttpUriRequest httpRequest;
+    private String abortReason;
+    private boolean superseded;
+
+    /**
+     * Returns the request of the current thread, starting one if there is none.
+     */
+    public static InFlightRequest current() {
+        InFlightRequest inFlight = CURRENT.get();
+        if (inFlight == null) {
+            inFlight = new InFlightRequest();
+            CURRENT.set(inFlight);
+        }
+        return inFlight;
+    }
+
+    /**
+     * Returns whether a request is running on the current thread.
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Ends the request of the current thread.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Returns whether the request of the current thread was superseded by another attempt of the same request.
+     */
+    public static boolean isSuperseded() {
+        InFlightRequest inFlight = CURRENT.get();
+        return inFlight != null && inFlight.wasSuperseded();
+    }
+
+    /**
+     * Attaches the HTTP request about to be sent to the request of the current thread, if any. If the request was
+     * already aborted, the HTTP request is aborted right away and fails when it is executed.
+     */
+    public static void attach(HttpUriRequest httpRequest) {
+        InFlightRequest inFlight = CURRENT.get();
+        if (inFlight != null) {
+            inFlight.setHttpRequest(httpRequest);
+        }
+    }
+
+    /**
+     * Aborts the request: the HTTP request being sent fails with an IOException, and so do the next ones.
+     */
+    public void abort(String reason) {
+        abort(reason, false);
+    }
+
+    /**
+     * Aborts the request because another attempt of the same request answered first.
+     */
+    public void supersede(String reason) {
+        abort(reason, true);
+    }
+
+    private void abort(String reason, boolean byOtherAttempt) {
+        HttpUriRequest request;
+        synchronized (this) {
+            if (abortReason != null) {
+                return;
+            }
+            abortReason = reason;
+            superseded = byOtherAttempt;
+            request = httpRequest;
+        }
+        if (request != null) {
+            request.abort();
+        }
+    }
+
+    /**
+     * Returns why the request was aborted, or null if it was not.
+     */
+    public synchronized String getAbortReason() {
+        return abortReason;
+    }
+
+    private synchronized boolean wasSuperseded() {
+        return superseded;
+    }
+
+    private void setHttpRequest(HttpUriRequest request) {
+        boolean aborted;
+        synchronized (this) {
+            httpRequest = request;
+            aborted = abortReason != null;
+        }
+        if (aborted) {
+            request.abort();
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+
+import com.wrapper.spotify.IHttpManager;
+import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+import com.wrapper.spotify.exceptions.detailed.BadGatewayException;
+import com.wrapper.spotify.exceptions.detailed.BadRequestException;
+import com.wrapper.spotify.exceptions.detailed.ForbiddenException;
+import com.wrapper.spotify.exceptions.detailed.InternalServerErrorException;
+import com.wrapper.spotify.exceptions.detailed.NotFoundException;
+import com.wrapper.spotify.exceptions.detailed.ServiceUnavailableException;
+import com.wrapper.spotify.exceptions.detailed.TooManyRequestsException;
+import com.wrapper.spotify.exceptions.detailed.UnauthorizedException;
+
+/**
+ * The {@link MeasuringHttpManager} records the latency and the result of every request handed to the delegate
+ * manager in the {@link SpotifyApiMetrics} of the account. The status code is recovered from the exception
+ * raised by {@link SpotifyHttpResponses}. The losing attempts of hedged requests, which are aborted when the other
+ * attempt answers, are not recorded: they would count as network errors and raise the latency percentile that
+ * hedging is keyed on.
+ *
+ * @author agent - Initial contribution
+ */
+public class MeasuringHttpManager implements IHttpManager {
+
+    private final IHttpManager delegate;
+    private final SpotifyApiMetrics metrics;
+
+    public MeasuringHttpManager(IHttpManager delegate, SpotifyApiMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String get(URI uri, Header[] headers) throws IOException, SpotifyWebApiException {
+        return execute("GET", uri, () -> delegate.get(uri, headers));
+    }
+
+    @Override
+    public String post(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return execute("POST", uri, () -> delegate.post(uri, headers, body));
+    }
+
+    @Override
+    public String put(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return execute("PUT", uri, () -> delegate.put(uri, headers, body));
+    }
+
+    @Override
+    public String delete(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return execute("DELETE", uri, () -> delegate.delete(uri, headers, body));
+    }
+
+    private String execute(String method, URI uri, RateLimitedHttpManager.HttpCall call)
+            throws IOException, SpotifyWebApiException {
+        String endpoint = method + " " + uri.getPath();
+        long start = System.nanoTime();
+        int statusCode = 0;
+        try {
+            String response = call.execute();
+            statusCode = HttpStatus.SC_OK;
+            return response;
+        } catch (SpotifyWebApiException e) {
+            statusCode = getStatusCode(e);
+            throw e;
+        } finally {
+            if (statusCode != 0 || !InFlightRequest.isSuperseded()) {
+                metrics.recordRequest(endpoint, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                        statusCode);
+            }
+        }
+    }
+
+    private int getStatusCode(SpotifyWebApiException e) {
+        if (e instanceof BadRequestException) {
+            return HttpStatus.SC_BAD_REQUEST;
+        } else if (e instanceof UnauthorizedException) {
+            return HttpStatus.SC_UNAUTHORIZED;
+        } else if (e instanceof ForbiddenException) {
+            return HttpStatus.SC_FORBIDDEN;
+        } else if (e instanceof NotFoundException) {
+            return HttpStatus.SC_NOT_FOUND;
+        } else if (e instanceof TooManyRequestsException) {
+            return 429;
+        } else if (e instanceof InternalServerErrorException) {
+            return HttpStatus.SC_INTERNAL_SERVER_ERROR;
+        } else if (e instanceof BadGatewayException) {
+            return HttpStatus.SC_BAD_GATEWAY;
+        } else if (e instanceof ServiceUnavailableException) {
+            return HttpStatus.SC_SERVICE_UNAVAILABLE;
+        }
+        // Other error answers of the Web API
+        return HttpStatus.SC_BAD_REQUEST;
+    }
+
+}
@@ -0,0 +1,279 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * The {@link NameIndex} resolves approximate names (like "dinner jazz" or "kitchen" sent by a voice assistant)
+ * to the playlists or devices of an account. Names are compared case-insensitively and without accents and
+ * punctuation. The matches are ranked: exact name, name prefix, prefixes of the name words, text contained in
+ * the name and finally words with a small spelling difference. Entries are added and removed one by one, so the
+ * {@link AccountInformationCache} follows its changes in a copy of the index, without rebuilding it.
+ *
+ * @author agent - Initial contribution
+ */
+public class NameIndex<T> {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int EXACT_SCORE = 1000;
+    private static final int PREFIX_SCORE = 800;
+    private static final int WORD_PREFIX_SCORE = 600;
+    private static final int CONTAINS_SCORE = 400;
+    private static final int FUZZY_SCORE = 200;
+
+    private final Map<String, Entry<T>> entries = new HashMap<>();
+    /** Entry keys by word, sorted so the words with a given prefix are a sub map. */
+    private final TreeMap<String, Set<String>> words = new TreeMap<>();
+
+    public NameIndex() {
+    }
+
+    /**
+     * Creates a copy of the given index, which can be changed without affecting the original one.
+     */
+    public NameIndex(NameIndex<T> other) {
+        synchronized (other) {
+            entries.putAll(other.entries);
+            for (Map.Entry<String, Set<String>> word : other.words.entrySet()) {
+                words.put(word.getKey(), new HashSet<>(word.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Adds or replaces an entry.
+     */
+    public synchronized void put(String key, String name, T value) {
+        remove(key);
+        if (name == null) {
+            return;
+        }
+        Entry<T> entry = new Entry<>(name, normalize(name), value);
+        entries.put(key, entry);
+        for (String word : entry.words) {
+            words.computeIfAbsent(word, w -> new HashSet<>()).add(key);
+        }
+    }
+
+    public synchronized void remove(String key) {
+        Entry<T> entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        for (String word : entry.words) {
+            Set<String> keys = words.get(word);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    words.remove(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all the entries whose key is not in the given ones.
+     */
+    public synchronized void retainAll(Collection<String> keys) {
+        for (String key : new ArrayList<>(entries.keySet())) {
+            if (!keys.contains(key)) {
+                remove(key);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        words.clear();
+    }
+
+    /**
+     * Returns the best match for the given name, or null if nothing matches.
+     */
+    public T find(String name) {
+        List<T> matches = search(name, 1);
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * Returns the entries matching the given name, best match first.
+     */
+    public synchronized List<T> search(String name, int maxResults) {
+        String query = normalize(name);
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String[] queryWords = query.split(" ");
+
+        // Only the entries with a word starting like a query word can match, fuzzy words need the first letter
+        Set<String> candidates = new HashSet<>();
+        for (String queryWord : queryWords) {
+            String first = queryWord.substring(0, 1);
+            for (Set<String> keys : words.subMap(first, first + Character.MAX_VALUE).values()) {
+                candidates.addAll(keys);
+            }
+        }
+
+        List<Match<T>> matches = new ArrayList<>();
+        for (String key : candidates) {
+            Entry<T> entry = entries.get(key);
+            int score = score(entry, query, queryWords);
+            if (score > 0) {
+                matches.add(new Match<>(entry, score));
+            }
+        }
+        if (matches.isEmpty()) {
+            for (Entry<T> entry : entries.values()) {
+                if (entry.normalizedName.contains(query)) {
+                    matches.add(new Match<>(entry, CONTAINS_SCORE));
+                }
+            }
+        }
+
+        matches.sort((a, b) -> {
+            if (a.score != b.score) {
+                return b.score - a.score;
+            }
+            if (a.entry.normalizedName.length() != b.entry.normalizedName.length()) {
+                return a.entry.normalizedName.length() - b.entry.normalizedName.length();
+            }
+            return a.entry.name.compareTo(b.entry.name);
+        });
+
+        List<T> results = new ArrayList<>(Math.min(maxResults, matches.size()));
+        for (int i = 0; i < matches.size() && i < maxResults; i++) {
+            results.add(matches.get(i).entry.value);
+        }
+        return results;
+    }
+
+    private int score(Entry<T> entry, String query, String[] queryWords) {
+        String normalizedName = entry.normalizedName;
+        if (normalizedName.equals(query)) {
+            return EXACT_SCORE;
+        }
+        if (normalizedName.startsWith(query)) {
+            return PREFIX_SCORE;
+        }
+        if (matchesWords(entry.words, queryWords, false)) {
+            return WORD_PREFIX_SCORE;
+        }
+        if (normalizedName.contains(query)) {
+            return CONTAINS_SCORE;
+        }
+        if (matchesWords(entry.words, queryWords, true)) {
+            return FUZZY_SCORE;
+        }
+        return 0;
+    }
+
+    /**
+     * Checks that every query word is the prefix of (or, if fuzzy, close to) a different word of the name.
+     */
+    private boolean matchesWords(String[] nameWords, String[] queryWords, boolean fuzzy) {
+        boolean[] used = new boolean[nameWords.length];
+        for (String queryWord : queryWords) {
+            boolean found = false;
+            for (int i = 0; i < nameWords.length && !found; i++) {
+                if (!used[i] && (fuzzy ? isClose(nameWords[i], queryWord) : nameWords[i].startsWith(queryWord))) {
+                    used[i] = true;
+                    found = true;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether two words are within the edit distance allowed for their length: none up to 3 letters,
+     * one up to 7 letters and two above.
+     */
+    private boolean isClose(String word, String queryWord) {
+        int maxDistance = queryWord.length() <= 3 ? 0 : queryWord.length() <= 7 ? 1 : 2;
+        if (Math.abs(word.length() - queryWord.length()) > maxDistance) {
+            return false;
+        }
+        int[] previous = new int[queryWord.length() + 1];
+        int[] current = new int[queryWord.length() + 1];
+        for (int j = 0; j <= queryWord.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= word.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= queryWord.length(); j++) {
+                int cost = word.charAt(i - 1) == queryWord.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > maxDistance) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[queryWord.length()] <= maxDistance;
+    }
+
+    /**
+     * Lower case, without accents and with the punctuation replaced by single spaces.
+     */
+    static String normalize(String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        String withoutDiacritics = DIACRITICS.matcher(decomposed).replaceAll("");
+        return SEPARATORS.matcher(withoutDiacritics.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static class Entry<T> {
+        private final String name;
+        private final String normalizedName;
+        private final String[] words;
+        private final T value;
+
+        Entry(String name, String normalizedName, T value) {
+            this.name = name;
+            this.normalizedName = normalizedName;
+            this.words = normalizedName.isEmpty() ? new String[0] : normalizedName.split(" ");
+            this.value = value;
+        }
+    }
+
+    private static class Match<T> {
+        private final Entry<T> entry;
+        private final int score;
+
+        Match(Entry<T> entry, int score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+
+}
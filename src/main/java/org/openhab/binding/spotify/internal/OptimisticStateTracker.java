@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link OptimisticStateTracker} keeps the playback values that were applied optimistically when a command
+ * was sent, until a playback poll confirms them. Until then, polls that still report the previous value (for
+ * example a poll sent before the command) do not overwrite the optimistic value. A value that is not confirmed
+ * within {@link #CONFIRMATION_TIMEOUT_MS}, or whose command failed, is rolled back by the next poll.
+ *
+ * @author agent - Initial contribution
+ */
+public class OptimisticStateTracker {
+
+    public enum Field {
+        DEVICE_NAME,
+        DEVICE_VOLUME,
+        IS_PLAYING,
+        TRACK_PROGRESS
+    }
+
+    private static final long CONFIRMATION_TIMEOUT_MS = 5000;
+    /** Accepted difference between the expected and the polled track progress. */
+    private static final long TRACK_PROGRESS_TOLERANCE_MS = 2000;
+
+    private final Logger logger = LoggerFactory.getLogger(OptimisticStateTracker.class);
+
+    private final Map<Field, Expectation> expectations = new EnumMap<>(Field.class);
+
+    /**
+     * Registers a value applied optimistically.
+     */
+    public synchronized void expect(Field field, Object value) {
+        expectations.put(field, new Expectation(value, System.nanoTime()));
+    }
+
+    /**
+     * Drops the optimistic value of a field, so the next poll rolls it back. Used when its command failed.
+     */
+    public synchronized void discard(Field field) {
+        if (expectations.remove(field) != null) {
+            logger.debug("Command for '{}' failed, rolling back the optimistic value", field);
+        }
+    }
+
+    /**
+     * Checks a polled value against the optimistic value of its field.
+     *
+     * @return true if the polled value must be ignored because the optimistic value is not yet confirmed,
+     *         false if the polled value must be applied
+     */
+    public synchronized boolean isPending(Field field, Object polledValue) {
+        Expectation expectation = expectations.get(field);
+        if (expectation == null) {
+            return false;
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - expectation.timestamp);
+        if (matches(field, expectation.value, polledValue, elapsedMs)) {
+            logger.trace("Optimistic value of '{}' confirmed", field);
+            expectations.remove(field);
+            return false;
+        }
+        if (elapsedMs > CONFIRMATION_TIMEOUT_MS) {
+            logger.debug("Optimistic value of '{}' not confirmed, rolling back to '{}'", field, polledValue);
+            expectations.remove(field);
+            return false;
+        }
+        return true;
+    }
+
+    public synchronized boolean isEmpty() {
+        return expectations.isEmpty();
+    }
+
+    public synchronized void clear() {
+        expectations.clear();
+    }
+
+    private boolean matches(Field field, Object expectedValue, Object polledValue, long elapsedMs) {
+        if (field == Field.TRACK_PROGRESS && expectedValue instanceof Integer && polledValue instanceof Integer) {
+            long difference = (Integer) polledValue - (Integer) expectedValue;
+            return difference >= -TRACK_PROGRESS_TOLERANCE_MS && difference <= elapsedMs + TRACK_PROGRESS_TOLERANCE_MS;
+        }
+        return Objects.equals(expectedValue, polledValue);
+    }
+
+    private static class Expectation {
+        private final Object value;
+        private final long timestamp;
+
+        Expectation(Object value, long timestamp) {
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+
+}
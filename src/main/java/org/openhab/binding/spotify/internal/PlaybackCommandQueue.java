@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link PlaybackCommandQueue} sends the player commands of an account one after the other. Commands are
+ * collected for a short window before they are sent, and a command with a coalescing key replaces the pending
+ * command with the same key and moves to the end of the batch, so only the last value of a volume or seek slider
+ * reaches the Spotify API and the commands are still sent in the order the user gave them.
+ * The refreshes requested by the commands of a batch are merged and run once after the batch.
+ *
+ * @author agent - Initial contribution
+ */
+public class PlaybackCommandQueue {
+
+    public enum Refresh {
+        PLAYBACK,
+        DEVICES,
+        PLAYLISTS
+    }
+
+    private static final long COALESCING_WINDOW_MS = 200;
+
+    private final Logger logger = LoggerFactory.getLogger(PlaybackCommandQueue.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<Set<Refresh>> refreshHandler;
+
+    private final Map<Object, PendingCommand> pendingCommands = new LinkedHashMap<>();
+    private ScheduledFuture<?> drainJob;
+    private boolean draining;
+    private boolean disposed;
+
+    /**
+     * @param refreshHandler runs the merged refreshes requested by a batch of commands
+     */
+    public PlaybackCommandQueue(ScheduledExecutorService scheduler, Consumer<Set<Refresh>> refreshHandler) {
+        this.scheduler = scheduler;
+        this.refreshHandler = refreshHandler;
+    }
+
+    /**
+     * Queues a command that replaces the pending command with the same key, if there is one.
+     */
+    public void coalesce(String key, Supplier<CompletableFuture<Void>> command, Refresh... refreshes) {
+        submit(key, command, refreshes);
+    }
+
+    /**
+     * Queues a command that is always sent, like a skip to the next track.
+     */
+    public void enqueue(Supplier<CompletableFuture<Void>> command, Refresh... refreshes) {
+        submit(new Object(), command, refreshes);
+    }
+
+    public synchronized void dispose() {
+        disposed = true;
+        pendingCommands.clear();
+        if (drainJob != null) {
+            drainJob.cancel(false);
+            drainJob = null;
+        }
+    }
+
+    private synchronized void submit(Object key, Supplier<CompletableFuture<Void>> command, Refresh... refreshes) {
+        if (disposed) {
+            return;
+        }
+        // Removed first, so the superseding command takes the place of the last command in the batch
+        PendingCommand replaced = pendingCommands.remove(key);
+        pendingCommands.put(key, new PendingCommand(command, refreshes));
+        if (replaced != null) {
+            logger.trace("Pending command '{}' superseded", key);
+        }
+        scheduleDrain();
+    }
+
+    private synchronized void scheduleDrain() {
+        if (!draining && drainJob == null && !pendingCommands.isEmpty()) {
+            drainJob = scheduler.schedule(this::drain, COALESCING_WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void drain() {
+        List<PendingCommand> batch;
+        synchronized (this) {
+            drainJob = null;
+            if (disposed || pendingCommands.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pendingCommands.values());
+            pendingCommands.clear();
+            draining = true;
+        }
+
+        logger.debug("Sending {} player command(s)", batch.size());
+        Set<Refresh> refreshes = EnumSet.noneOf(Refresh.class);
+        CompletableFuture<Void> batchFuture = CompletableFuture.completedFuture(null);
+        for (PendingCommand pendingCommand : batch) {
+            refreshes.addAll(pendingCommand.refreshes);
+            batchFuture = batchFuture.thenCompose(result -> send(pendingCommand));
+        }
+
+        batchFuture.thenRun(() -> {
+            synchronized (this) {
+                draining = false;
+                if (disposed) {
+                    return;
+                }
+                scheduleDrain();
+            }
+            if (!refreshes.isEmpty()) {
+                refreshHandler.accept(refreshes);
+            }
+        });
+    }
+
+    /**
+     * Sends a command, so that a failing command does not prevent the rest of the batch from being sent.
+     */
+    private CompletableFuture<Void> send(PendingCommand pendingCommand) {
+        try {
+            return pendingCommand.command.get().exceptionally(e -> {
+                logger.debug("Error sending player command: {}", SpotifyRequestExecutor.unwrap(e).getMessage());
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Error sending player command: {}", e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private static class PendingCommand {
+        private final Supplier<CompletableFuture<Void>> command;
+        private final List<Refresh> refreshes;
+
+        PendingCommand(Supplier<CompletableFuture<Void>> command, Refresh[] refreshes) {
+            this.command = command;
+            this.refreshes = Arrays.asList(refreshes);
+        }
+    }
+
+}
@@ -8,18 +8,24 @@
  */
 package org.openhab.binding.spotify.internal;
 
-import java.io.IOException;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.JsonArray;
-import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import com.wrapper.spotify.SpotifyApi;
-import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+import com.wrapper.spotify.model_objects.miscellaneous.Device;
+import com.wrapper.spotify.model_objects.specification.PlaylistSimplified;
+import com.wrapper.spotify.model_objects.specification.User;
+import com.wrapper.spotify.requests.IRequest;
+import com.wrapper.spotify.requests.data.player.PauseUsersPlaybackRequest;
 import com.wrapper.spotify.requests.data.player.SeekToPositionInCurrentlyPlayingTrackRequest;
+import com.wrapper.spotify.requests.data.player.SetVolumeForUsersPlaybackRequest;
+import com.wrapper.spotify.requests.data.player.SkipUsersPlaybackToNextTrackRequest;
+import com.wrapper.spotify.requests.data.player.SkipUsersPlaybackToPreviousTrackRequest;
+import com.wrapper.spotify.requests.data.player.StartResumeUsersPlaybackRequest;
 
 public class PlaybackControl {
 
@@ -28,121 +34,211 @@ public class PlaybackControl {
     private SpotifyApi spotifyApi;
     private PlaybackInformationCache playbackInfo;
     private AccountInformationCache accountInfo;
+    private RequestBudget requestBudget;
+    private SpotifyRequestExecutor requestExecutor;
 
     public PlaybackControl(SpotifyApi api, PlaybackInformationCache playbackCache,
-            AccountInformationCache accountCache) {
+            AccountInformationCache accountCache, RequestBudget budget, SpotifyRequestExecutor executor) {
         this.spotifyApi = api;
         this.playbackInfo = playbackCache;
         this.accountInfo = accountCache;
+        this.requestBudget = budget;
+        this.requestExecutor = executor;
     }
 
-    public void transferPlayback(String newDeviceName) {
-        if (!accountInfo.getAvailableDevices().containsKey(newDeviceName)) {
-            logger.error("Device '{}' is not available", newDeviceName);
+    private boolean isRateLimited() {
+        if (requestBudget.isPaused()) {
+            logger.warn("Spotify API rate limit reached, command discarded. Retry in {} ms",
+                    requestBudget.getRemainingPauseMs());
+            return true;
         }
-        String deviceId = accountInfo.getAvailableDevices().get(newDeviceName).getId();
-        JsonArray deviceIds = new JsonParser().parse(String.format("[\'%s\']", deviceId)).getAsJsonArray();
-        try {
-            spotifyApi.transferUsersPlayback(deviceIds).play(true).build().execute();
-        } catch (SpotifyWebApiException e) {
-            logger.error("Error transfering playback: {}", e.getMessage());
-        } catch (IOException e) {
-            logger.error("Error transfering playback: {}", e.getMessage());
+        return false;
+    }
+
+    private CompletableFuture<Void> discarded() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(
+                new RequestBudgetExhaustedException("Command discarded", requestBudget.getRemainingPauseMs()));
+        return future;
+    }
+
+    /**
+     * Executes the command request.
+     *
+     * @return a future completed when the command is done, or exceptionally (after logging it) if it failed
+     */
+    private CompletableFuture<Void> execute(IRequest request, String errorMessage) {
+        return requestExecutor.<String> execute(RequestPriority.INTERACTIVE, request).<Void> thenApply(result -> null)
+                .whenComplete((result, e) -> {
+                    Throwable cause = e != null ? SpotifyRequestExecutor.unwrap(e) : null;
+                    if (cause instanceof CircuitOpenException || cause instanceof RequestBudgetExhaustedException) {
+                        logger.warn(errorMessage, cause.getMessage());
+                    } else if (cause != null) {
+                        logger.error(errorMessage, cause.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Returns a future failed with the given reason, for commands that cannot be sent.
+     */
+    private CompletableFuture<Void> rejected(String reason) {
+        logger.warn("{}, command discarded", reason);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(new IllegalArgumentException(reason));
+        return future;
+    }
+
+    /**
+     * Returns the ID of the device currently playing, or null to let Spotify target the active device.
+     */
+    private String getActiveDeviceId() {
+        String deviceName = playbackInfo.getDeviceName();
+        Device device = deviceName != null ? accountInfo.findDevice(deviceName) : null;
+        if (device == null) {
+            logger.debug("Device '{}' is not known, sending the command to the active device", deviceName);
+            return null;
         }
+        return device.getId();
     }
 
-    public void setPlaybackVolume(int volume) {
-        try {
-            String deviceName = playbackInfo.getDeviceName();
-            String deviceId = accountInfo.getAvailableDevices().get(deviceName).getId();
-            spotifyApi.setVolumeForUsersPlayback(volume).device_id(deviceId).build().execute();
-        } catch (SpotifyWebApiException e) {
-            logger.error("Error setting plackback volume: {}", e.getMessage());
-        } catch (IOException e) {
-            logger.error("Error setting plackback volume: {}", e.getMessage());
+    public CompletableFuture<Void> transferPlayback(String newDeviceName) {
+        if (isRateLimited()) {
+            return discarded();
         }
+        Device device = accountInfo.findDevice(newDeviceName);
+        if (device == null) {
+            return rejected(String.format("Device '%s' is not available", newDeviceName));
+        }
+        logger.debug("Transferring playback to device '{}' (requested '{}')", device.getName(), newDeviceName);
+        JsonArray deviceIds = new JsonArray();
+        deviceIds.add(new JsonPrimitive(device.getId()));
+        return execute(spotifyApi.transferUsersPlayback(deviceIds).play(true).build(),
+                "Error transfering playback: {}");
+    }
+
+    public CompletableFuture<Void> setPlaybackVolume(int volume) {
+        return setPlaybackVolume(getActiveDeviceId(), volume);
     }
 
-    public void nextTrack() {
-        try {
-            String deviceName = playbackInfo.getDeviceName();
-            String deviceId = accountInfo.getAvailableDevices().get(deviceName).getId();
-            spotifyApi.skipUsersPlaybackToNextTrack().device_id(deviceId).build().execute();
-        } catch (SpotifyWebApiException e) {
-            logger.error("Error playing next track: {}", e.getMessage());
-        } catch (IOException e) {
-            logger.error("Error playing next track: {}", e.getMessage());
+    /**
+     * Sets the volume of the given device, or of the active device if the device ID is null.
+     */
+    public CompletableFuture<Void> setPlaybackVolume(String deviceId, int volume) {
+        if (isRateLimited()) {
+            return discarded();
+        }
+        SetVolumeForUsersPlaybackRequest.Builder request = spotifyApi.setVolumeForUsersPlayback(volume);
+        if (deviceId != null) {
+            request.device_id(deviceId);
         }
+        return execute(request.build(), "Error setting plackback volume: {}");
     }
 
-    public void previousTrack() {
-        try {
-            String deviceName = playbackInfo.getDeviceName();
-            String deviceId = accountInfo.getAvailableDevices().get(deviceName).getId();
-            spotifyApi.skipUsersPlaybackToPreviousTrack().device_id(deviceId).build().execute();
-        } catch (SpotifyWebApiException e) {
-            logger.error("Error playing previous track: {}", e.getMessage());
-        } catch (IOException e) {
-            logger.error("Error playing previous track: {}", e.getMessage());
+    public CompletableFuture<Void> nextTrack() {
+        return nextTrack(getActiveDeviceId());
+    }
+
+    public CompletableFuture<Void> nextTrack(String deviceId) {
+        if (isRateLimited()) {
+            return discarded();
         }
+        SkipUsersPlaybackToNextTrackRequest.Builder request = spotifyApi.skipUsersPlaybackToNextTrack();
+        if (deviceId != null) {
+            request.device_id(deviceId);
+        }
+        return execute(request.build(), "Error playing next track: {}");
     }
 
-    public void playTrack() {
-        try {
-            String deviceName = playbackInfo.getDeviceName();
-            String deviceId = accountInfo.getAvailableDevices().get(deviceName).getId();
-            spotifyApi.startResumeUsersPlayback().device_id(deviceId).build().execute();
-        } catch (SpotifyWebApiException e) {
-            logger.error("Error playing track: {}", e.getMessage());
-        } catch (IOException e) {
-            logger.error("Error playing track: {}", e.getMessage());
+    public CompletableFuture<Void> previousTrack() {
+        return previousTrack(getActiveDeviceId());
+    }
+
+    public CompletableFuture<Void> previousTrack(String deviceId) {
+        if (isRateLimited()) {
+            return discarded();
+        }
+        SkipUsersPlaybackToPreviousTrackRequest.Builder request = spotifyApi.skipUsersPlaybackToPreviousTrack();
+        if (deviceId != null) {
+            request.device_id(deviceId);
         }
+        return execute(request.build(), "Error playing previous track: {}");
+    }
+
+    public CompletableFuture<Void> playTrack() {
+        return playTrack(getActiveDeviceId());
     }
 
-    public void pauseTrack() {
-        try {
-            String deviceName = playbackInfo.getDeviceName();
-            String deviceId = accountInfo.getAvailableDevices().get(deviceName).getId();
-            spotifyApi.pauseUsersPlayback().device_id(deviceId).build().execute();
-        } catch (SpotifyWebApiException e) {
-            logger.error("Error playing track: {}", e.getMessage());
-        } catch (IOException e) {
-            logger.error("Error playing track: {}", e.getMessage());
+    public CompletableFuture<Void> playTrack(String deviceId) {
+        if (isRateLimited()) {
+            return discarded();
         }
+        StartResumeUsersPlaybackRequest.Builder request = spotifyApi.startResumeUsersPlayback();
+        if (deviceId != null) {
+            request.device_id(deviceId);
+        }
+        return execute(request.build(), "Error playing track: {}");
     }
 
-    public void seekToPosition(int newPositionMs) {
-        try {
-            String deviceName = playbackInfo.getDeviceName();
-            String deviceId = accountInfo.getAvailableDevices().get(deviceName).getId();
+    public CompletableFuture<Void> pauseTrack() {
+        return pauseTrack(getActiveDeviceId());
+    }
 
-            SeekToPositionInCurrentlyPlayingTrackRequest seekToPositionInCurrentlyPlayingTrackRequest = spotifyApi
-                    .seekToPositionInCurrentlyPlayingTrack(newPositionMs).device_id(deviceId).build();
+    public CompletableFuture<Void> pauseTrack(String deviceId) {
+        if (isRateLimited()) {
+            return discarded();
+        }
+        PauseUsersPlaybackRequest.Builder request = spotifyApi.pauseUsersPlayback();
+        if (deviceId != null) {
+            request.device_id(deviceId);
+        }
+        return execute(request.build(), "Error pausing track: {}");
+    }
 
-            Future<String> stringFuture = seekToPositionInCurrentlyPlayingTrackRequest.executeAsync();
-            stringFuture.get();
-        } catch (InterruptedException e) {
-            logger.error("Erro seeking to new position: {}", e.getMessage());
-        } catch (ExecutionException e) {
-            logger.error("Error seeking to new position: {}", e.getMessage());
+    public CompletableFuture<Void> seekToPosition(int newPositionMs) {
+        if (isRateLimited()) {
+            return discarded();
+        }
+        SeekToPositionInCurrentlyPlayingTrackRequest.Builder request = spotifyApi
+                .seekToPositionInCurrentlyPlayingTrack(newPositionMs);
+        String deviceId = getActiveDeviceId();
+        if (deviceId != null) {
+            request.device_id(deviceId);
         }
+        return execute(request.build(), "Error seeking to new position: {}");
+    }
+
+    public CompletableFuture<Void> startPlaylist(String playlistName) {
+        return startPlaylist(getActiveDeviceId(), playlistName);
     }
 
-    public void startPlaylist(String playlistName) {
-        try {
-            String deviceName = playbackInfo.getDeviceName();
-            String deviceId = accountInfo.getAvailableDevices().get(deviceName).getId();
-            String playlistId = accountInfo.getSavedPlaylists().get(playlistName).getId();
-            String userId = accountInfo.getUser().getId();
-            String contextUri = String.format("spotify:user:%s:playlist:%s", userId, playlistId);
-            logger.debug("Starting playlist '{}' ('{}') on device '{}' ('{}')", playlistName, contextUri, deviceName,
-                    deviceId);
-            spotifyApi.startResumeUsersPlayback().context_uri(contextUri).device_id(deviceId).build().execute();
-        } catch (SpotifyWebApiException e) {
-            logger.error("Error starting playlist: {}", e.getMessage());
-        } catch (IOException e) {
-            logger.error("Error starting playlist: {}", e.getMessage());
+    /**
+     * Starts the given playlist on the given device, or on the active device if the device ID is null.
+     */
+    public CompletableFuture<Void> startPlaylist(String deviceId, String playlistName) {
+        if (isRateLimited()) {
+            return discarded();
+        }
+        PlaylistSimplified playlist = accountInfo.findSavedPlaylist(playlistName);
+        if (playlist == null) {
+            return rejected(String.format("Playlist '%s' not found", playlistName));
+        }
+        String contextUri = playlist.getUri();
+        if (contextUri == null) {
+            User user = accountInfo.getUser();
+            if (user == null) {
+                return rejected(String.format("Playlist '%s' has no URI and the user is not known yet",
+                        playlist.getName()));
+            }
+            contextUri = String.format("spotify:user:%s:playlist:%s", user.getId(), playlist.getId());
+        }
+        StartResumeUsersPlaybackRequest.Builder request = spotifyApi.startResumeUsersPlayback().context_uri(contextUri);
+        if (deviceId != null) {
+            request.device_id(deviceId);
         }
+        logger.debug("Starting playlist '{}' ('{}', requested '{}') on device '{}'", playlist.getName(), contextUri,
+                playlistName, deviceId);
+        return execute(request.build(), "Error starting playlist: {}");
     }
 
 }
@@ -1,80 +1,132 @@
 package org.openhab.binding.spotify.internal;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link PlaybackSnapshot} of an account, together with the time its track progress was
+ * received. Both are published together as one immutable value, so readers never see a snapshot with the
+ * timestamp of another one and never lock. The setters are only called from the {@link AccountEventLoop} of the
+ * account; every setter replaces the snapshot with an updated copy.
+ */
 public class PlaybackInformationCache {
 
-    private String trackTitle;
-    private String trackArtist;
-    private String trackAlbum;
-    private Integer trackProgressMs;
-    private Integer trackDuration;
-    private String deviceName;
-    private Integer deviceVolume;
-    private Boolean isPlaying;
+    private final AtomicReference<TimedSnapshot> current = new AtomicReference<>(
+            new TimedSnapshot(PlaybackSnapshot.EMPTY, System.nanoTime()));
 
     public PlaybackInformationCache() {
     }
 
+    public PlaybackSnapshot getSnapshot() {
+        return current.get().snapshot;
+    }
+
+    /**
+     * Replaces the snapshot.
+     *
+     * @param trackProgressReceived whether the track progress of the snapshot was just received, restarting
+     *            the local progress clock
+     */
+    public void setSnapshot(PlaybackSnapshot snapshot, boolean trackProgressReceived) {
+        current.updateAndGet(previous -> new TimedSnapshot(snapshot,
+                trackProgressReceived ? System.nanoTime() : previous.trackProgressTimestamp));
+    }
+
     public String getTrackTitle() {
-        return this.trackTitle;
+        return getSnapshot().getTrackTitle();
     }
 
     public String getTrackArtist() {
-        return this.trackArtist;
+        return getSnapshot().getTrackArtist();
     }
 
     public String getTrackAlbum() {
-        return this.trackAlbum;
+        return getSnapshot().getTrackAlbum();
     }
 
     public Integer getTrackProgressMs() {
-        return this.trackProgressMs;
+        return getSnapshot().getTrackProgressMs();
+    }
+
+    /**
+     * Returns the track progress (in ms) estimated from the last received progress, the time elapsed since
+     * it was received and whether the track was playing, or null if no progress has been received yet.
+     */
+    public Integer getInterpolatedTrackProgressMs() {
+        TimedSnapshot timedSnapshot = current.get();
+        PlaybackSnapshot snapshot = timedSnapshot.snapshot;
+        Integer trackProgressMs = snapshot.getTrackProgressMs();
+        if (trackProgressMs == null) {
+            return null;
+        }
+        Boolean isPlaying = snapshot.isPlaying();
+        if (isPlaying == null || !isPlaying) {
+            return trackProgressMs;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - timedSnapshot.trackProgressTimestamp);
+        long progressMs = trackProgressMs + elapsedMs;
+        Integer trackDuration = snapshot.getTrackDuration();
+        if (trackDuration != null) {
+            progressMs = Math.min(progressMs, trackDuration);
+        }
+        return (int) progressMs;
     }
 
     public Integer getTrackDuration() {
-        return this.trackDuration;
+        return getSnapshot().getTrackDuration();
     }
 
     public String getDeviceName() {
-        return this.deviceName;
+        return getSnapshot().getDeviceName();
     }
 
     public Integer getDeviceVolume() {
-        return this.deviceVolume;
+        return getSnapshot().getDeviceVolume();
     }
 
     public Boolean isPlaying() {
-        return this.isPlaying;
+        return getSnapshot().isPlaying();
     }
 
     public void setTrackTitle(String trackTitle) {
-        this.trackTitle = trackTitle;
+        setSnapshot(getSnapshot().toBuilder().setTrackTitle(trackTitle).build(), false);
     }
 
     public void setTrackArtist(String trackArtist) {
-        this.trackArtist = trackArtist;
+        setSnapshot(getSnapshot().toBuilder().setTrackArtist(trackArtist).build(), false);
     }
 
     public void setTrackAlbum(String trackAlbum) {
-        this.trackAlbum = trackAlbum;
+        setSnapshot(getSnapshot().toBuilder().setTrackAlbum(trackAlbum).build(), false);
     }
 
     public void setTrackProgressMs(Integer trackProgressMs) {
-        this.trackProgressMs = trackProgressMs;
+        setSnapshot(getSnapshot().toBuilder().setTrackProgressMs(trackProgressMs).build(), true);
     }
 
     public void setTrackDuration(Integer trackDuration) {
-        this.trackDuration = trackDuration;
+        setSnapshot(getSnapshot().toBuilder().setTrackDuration(trackDuration).build(), false);
     }
 
     public void setDeviceName(String deviceName) {
-        this.deviceName = deviceName;
+        setSnapshot(getSnapshot().toBuilder().setDeviceName(deviceName).build(), false);
     }
 
     public void setDeviceVolume(Integer deviceVolume) {
-        this.deviceVolume = deviceVolume;
+        setSnapshot(getSnapshot().toBuilder().setDeviceVolume(deviceVolume).build(), false);
     }
 
     public void setIsPlaying(Boolean isPlaying) {
-        this.isPlaying = isPlaying;
+        setSnapshot(getSnapshot().toBuilder().setIsPlaying(isPlaying).build(), false);
+    }
+
+    private static final class TimedSnapshot {
+        private final PlaybackSnapshot snapshot;
+        private final long trackProgressTimestamp;
+
+        TimedSnapshot(PlaybackSnapshot snapshot, long trackProgressTimestamp) {
+            this.snapshot = snapshot;
+            this.trackProgressTimestamp = trackProgressTimestamp;
+        }
     }
 }
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+/**
+ * The {@link PlaybackPollingScheduler} computes the delay until the next playback information poll.
+ * It polls at the configured rate while a track is playing, adds a poll at the predicted end of the
+ * current track and backs off step by step while the playback is paused or no information is available.
+ *
+ * @author agent - Initial contribution
+ */
+public class PlaybackPollingScheduler {
+
+    /** Time given to the Spotify API to switch to the next track before polling at the track boundary. */
+    private static final long TRACK_BOUNDARY_MARGIN_MS = 500;
+
+    private final long playingIntervalMs;
+    private final long idleIntervalMs;
+    private long currentIdleIntervalMs;
+
+    public PlaybackPollingScheduler(int playbackRefreshInterval, int playbackIdleRefreshInterval) {
+        this.playingIntervalMs = playbackRefreshInterval * 1000L;
+        this.idleIntervalMs = Math.max(playbackIdleRefreshInterval * 1000L, this.playingIntervalMs);
+        this.currentIdleIntervalMs = this.playingIntervalMs;
+    }
+
+    /**
+     * Resets the back-off, so the next poll happens at the playing rate.
+     * It should be called whenever the user interacts with the player.
+     */
+    public synchronized void reset() {
+        currentIdleIntervalMs = playingIntervalMs;
+    }
+
+    /**
+     * Returns the delay (in ms) until the next playback poll.
+     *
+     * @param playbackInfo last known playback information
+     * @param noInformationAvailable whether the last poll returned no playback at all
+     */
+    public synchronized long getNextDelay(PlaybackInformationCache playbackInfo, boolean noInformationAvailable) {
+        Boolean isPlaying = playbackInfo.isPlaying();
+
+        if (noInformationAvailable || isPlaying == null || !isPlaying) {
+            long delay = currentIdleIntervalMs;
+            currentIdleIntervalMs = Math.min(currentIdleIntervalMs * 2, idleIntervalMs);
+            return delay;
+        }
+
+        currentIdleIntervalMs = playingIntervalMs;
+
+        Integer trackDuration = playbackInfo.getTrackDuration();
+        Integer trackProgressMs = playbackInfo.getTrackProgressMs();
+        if (trackDuration != null && trackProgressMs != null) {
+            long remainingMs = Math.max(0, trackDuration - trackProgressMs) + TRACK_BOUNDARY_MARGIN_MS;
+            if (remainingMs < playingIntervalMs) {
+                return remainingMs;
+            }
+        }
+
+        return playingIntervalMs;
+    }
+
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.util.Objects;
+
+/**
+ * The {@link PlaybackSnapshot} is an immutable view of the playback information of an account at one point in
+ * time. Unknown values are null. {@link #diff(PlaybackSnapshot)} compares two snapshots into a mask of the
+ * changed values, so only the channels that actually changed are updated.
+ *
+ * @author agent - Initial contribution
+ */
+public final class PlaybackSnapshot {
+
+    public static final int TRACK_TITLE = 1;
+    public static final int TRACK_ARTIST = 1 << 1;
+    public static final int TRACK_ALBUM = 1 << 2;
+    public static final int TRACK_DURATION = 1 << 3;
+    public static final int TRACK_PROGRESS = 1 << 4;
+    public static final int DEVICE_NAME = 1 << 5;
+    public static final int DEVICE_VOLUME = 1 << 6;
+    public static final int IS_PLAYING = 1 << 7;
+
+    public static final PlaybackSnapshot EMPTY = new Builder().build();
+
+    private final String trackTitle;
+    private final String trackArtist;
+    private final String trackAlbum;
+    private final Integer trackDuration;
+    private final Integer trackProgressMs;
+    private final String deviceName;
+    private final Integer deviceVolume;
+    private final Boolean isPlaying;
+
+    private PlaybackSnapshot(Builder builder) {
+        this.trackTitle = builder.trackTitle;
+        this.trackArtist = builder.trackArtist;
+        this.trackAlbum = builder.trackAlbum;
+        this.trackDuration = builder.trackDuration;
+        this.trackProgressMs = builder.trackProgressMs;
+        this.deviceName = builder.deviceName;
+        this.deviceVolume = builder.deviceVolume;
+        this.isPlaying = builder.isPlaying;
+    }
+
+    public String getTrackTitle() {
+        return trackTitle;
+    }
+
+    public String getTrackArtist() {
+        return trackArtist;
+    }
+
+    public String getTrackAlbum() {
+        return trackAlbum;
+    }
+
+    public Integer getTrackDuration() {
+        return trackDuration;
+    }
+
+    public Integer getTrackProgressMs() {
+        return trackProgressMs;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public Integer getDeviceVolume() {
+        return deviceVolume;
+    }
+
+    public Boolean isPlaying() {
+        return isPlaying;
+    }
+
+    /**
+     * Returns the mask of the values that differ between this snapshot and the given one.
+     */
+    public int diff(PlaybackSnapshot other) {
+        int changes = 0;
+        if (!Objects.equals(trackTitle, other.trackTitle)) {
+            changes |= TRACK_TITLE;
+        }
+        if (!Objects.equals(trackArtist, other.trackArtist)) {
+            changes |= TRACK_ARTIST;
+        }
+        if (!Objects.equals(trackAlbum, other.trackAlbum)) {
+            changes |= TRACK_ALBUM;
+        }
+        if (!Objects.equals(trackDuration, other.trackDuration)) {
+            changes |= TRACK_DURATION;
+        }
+        if (!Objects.equals(trackProgressMs, other.trackProgressMs)) {
+            changes |= TRACK_PROGRESS;
+        }
+        if (!Objects.equals(deviceName, other.deviceName)) {
+            changes |= DEVICE_NAME;
+        }
+        if (!Objects.equals(deviceVolume, other.deviceVolume)) {
+            changes |= DEVICE_VOLUME;
+        }
+        if (!Objects.equals(isPlaying, other.isPlaying)) {
+            changes |= IS_PLAYING;
+        }
+        return changes;
+    }
+
+    public Builder toBuilder() {
+        return new Builder().setTrackTitle(trackTitle).setTrackArtist(trackArtist).setTrackAlbum(trackAlbum)
+                .setTrackDuration(trackDuration).setTrackProgressMs(trackProgressMs).setDeviceName(deviceName)
+                .setDeviceVolume(deviceVolume).setIsPlaying(isPlaying);
+    }
+
+    @Override
+    public String toString() {
+        return "PlaybackSnapshot(trackTitle=" + trackTitle + ", trackArtist=" + trackArtist + ", trackAlbum="
+                + trackAlbum + ", trackDuration=" + trackDuration + ", trackProgressMs=" + trackProgressMs
+                + ", deviceName=" + deviceName + ", deviceVolume=" + deviceVolume + ", isPlaying=" + isPlaying
+                + ")";
+    }
+
+    public static final class Builder {
+        private String trackTitle;
+        private String trackArtist;
+        private String trackAlbum;
+        private Integer trackDuration;
+        private Integer trackProgressMs;
+        private String deviceName;
+        private Integer deviceVolume;
+        private Boolean isPlaying;
+
+        public Builder setTrackTitle(String trackTitle) {
+            this.trackTitle = trackTitle;
+            return this;
+        }
+
+        public Builder setTrackArtist(String trackArtist) {
+            this.trackArtist = trackArtist;
+            return this;
+        }
+
+        public Builder setTrackAlbum(String trackAlbum) {
+            this.trackAlbum = trackAlbum;
+            return this;
+        }
+
+        public Builder setTrackDuration(Integer trackDuration) {
+            this.trackDuration = trackDuration;
+            return this;
+        }
+
+        public Builder setTrackProgressMs(Integer trackProgressMs) {
+            this.trackProgressMs = trackProgressMs;
+            return this;
+        }
+
+        public Builder setDeviceName(String deviceName) {
+            this.deviceName = deviceName;
+            return this;
+        }
+
+        public Builder setDeviceVolume(Integer deviceVolume) {
+            this.deviceVolume = deviceVolume;
+            return this;
+        }
+
+        public Builder setIsPlaying(Boolean isPlaying) {
+            this.isPlaying = isPlaying;
+            return this;
+        }
+
+        public PlaybackSnapshot build() {
+            return new PlaybackSnapshot(this);
+        }
+    }
+
+}
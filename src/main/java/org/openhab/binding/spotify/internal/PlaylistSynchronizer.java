@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wrapper.spotify.SpotifyApi;
+import com.wrapper.spotify.model_objects.specification.PlaylistSimplified;
+
+/**
+ * The {@link PlaylistSynchronizer} fetches all the pages of the user's playlists. The first page gives the
+ * total number of playlists and the remaining pages are then fetched concurrently. Every page is revalidated
+ * on its own, so unchanged pages are neither downloaded nor parsed again.
+ *
+ * @author agent - Initial contribution
+ */
+public class PlaylistSynchronizer {
+
+    private final Logger logger = LoggerFactory.getLogger(PlaylistSynchronizer.class);
+
+    private static final int PAGE_SIZE = 50;
+
+    private final SpotifyApi spotifyApi;
+    private final SpotifyRequestExecutor requestExecutor;
+
+    private final Map<Integer, PlaylistSimplified[]> pages = new ConcurrentHashMap<>();
+    private volatile int total = 0;
+
+    public PlaylistSynchronizer(SpotifyApi spotifyApi, SpotifyRequestExecutor requestExecutor) {
+        this.spotifyApi = spotifyApi;
+        this.requestExecutor = requestExecutor;
+    }
+
+    /**
+     * Fetches the user's playlists, all the pages with the given priority.
+     *
+     * @return a future completed with all the playlists in the user's order, or with null if no page changed
+     */
+    public CompletableFuture<List<PlaylistSimplified>> synchronize(RequestPriority priority) {
+        return fetchPage(priority, 0).thenCompose(firstPageModified -> {
+            int currentTotal = total;
+            boolean pagesRemoved = pages.keySet().removeIf(offset -> offset > 0 && offset >= currentTotal);
+
+            List<CompletableFuture<Boolean>> remainingPages = new ArrayList<>();
+            for (int offset = PAGE_SIZE; offset < currentTotal; offset += PAGE_SIZE) {
+                remainingPages.add(fetchPage(priority, offset));
+            }
+            logger.debug("Synchronizing {} playlists in {} pages", currentTotal, remainingPages.size() + 1);
+
+            return CompletableFuture.allOf(remainingPages.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+                boolean modified = firstPageModified || pagesRemoved;
+                for (CompletableFuture<Boolean> page : remainingPages) {
+                    modified |= page.join();
+                }
+                return modified ? getPlaylists(currentTotal) : null;
+            });
+        });
+    }
+
+    private CompletableFuture<Boolean> fetchPage(RequestPriority priority, int offset) {
+        return requestExecutor
+                .executeIfModified(priority,
+                        spotifyApi.getListOfCurrentUsersPlaylists().limit(PAGE_SIZE).offset(offset).build(),
+                        json -> new PlaylistSimplified.JsonUtil().createModelObjectPaging(json))
+                .thenApply(paging -> {
+                    if (paging == null) {
+                        return !pages.containsKey(offset);
+                    }
+                    pages.put(offset, paging.getItems());
+                    if (offset == 0) {
+                        total = paging.getTotal();
+                    }
+                    return true;
+                });
+    }
+
+    private List<PlaylistSimplified> getPlaylists(int currentTotal) {
+        List<PlaylistSimplified> playlists = new ArrayList<>(currentTotal);
+        for (int offset = 0; offset < Math.max(currentTotal, 1); offset += PAGE_SIZE) {
+            PlaylistSimplified[] page = pages.get(offset);
+            if (page != null) {
+                playlists.addAll(Arrays.asList(page));
+            }
+        }
+        return playlists;
+    }
+
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link PollingWatchdog} detects the polling jobs of an account that stopped polling: a scheduled job stops
+ * for good when its runnable throws, and a poll waiting for a response that never comes stops the playback
+ * polling, which schedules each poll when the previous one completes. Every job reports a heartbeat when a poll
+ * completes; {@link #check()}, run periodically, restarts the jobs that have been silent for longer than they
+ * may be.
+ *
+ * @author agent - Initial contribution
+ */
+public class PollingWatchdog {
+
+    private final Logger logger = LoggerFactory.getLogger(PollingWatchdog.class);
+
+    private final Map<String, WatchedJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Starts watching a job.
+     *
+     * @param maxSilenceMs longest expected time between two heartbeats, including the deadline of a poll
+     * @param restart restarts the job
+     */
+    public void watch(String job, long maxSilenceMs, Runnable restart) {
+        jobs.put(job, new WatchedJob(maxSilenceMs, restart));
+    }
+
+    public void unwatch(String job) {
+        jobs.remove(job);
+    }
+
+    public void unwatchAll() {
+        jobs.clear();
+    }
+
+    /**
+     * Reports that a poll of the job completed, successfully or not.
+     */
+    public void heartbeat(String job) {
+        WatchedJob watchedJob = jobs.get(job);
+        if (watchedJob != null) {
+            watchedJob.lastHeartbeat = System.nanoTime();
+        }
+    }
+
+    /**
+     * Restarts the jobs that have been silent for too long.
+     */
+    public void check() {
+        for (Map.Entry<String, WatchedJob> entry : jobs.entrySet()) {
+            WatchedJob watchedJob = entry.getValue();
+            long silenceMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - watchedJob.lastHeartbeat);
+            if (silenceMs > watchedJob.maxSilenceMs) {
+                logger.warn("The {} polling has been stalled for {} s, restarting it", entry.getKey(),
+                        TimeUnit.MILLISECONDS.toSeconds(silenceMs));
+                watchedJob.lastHeartbeat = System.nanoTime();
+                try {
+                    watchedJob.restart.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Error restarting the {} polling: {}", entry.getKey(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static class WatchedJob {
+        private final long maxSilenceMs;
+        private final Runnable restart;
+        private volatile long lastHeartbeat = System.nanoTime();
+
+        WatchedJob(long maxSilenceMs, Runnable restart) {
+            this.maxSilenceMs = maxSilenceMs;
+            this.restart = restart;
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wrapper.spotify.IHttpManager;
+import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+import com.wrapper.spotify.exceptions.detailed.TooManyRequestsException;
+
+/**
+ * The {@link RateLimitedHttpManager} takes every request from the {@link RequestBudget} of its client ID
+ * before handing it to the delegate manager, and pauses the budget when a 429 answer is received. How much of the
+ * budget a request may use depends on its {@link RequestPriority}: the refreshes leave a few tokens for the
+ * commands, and the periodic polls leave more. A request the budget has no token for fails right away with a
+ * {@link RequestBudgetExhaustedException}, the {@link TooManyRequestsException} being left for the 429 answers of
+ * the Web API: the {@link SpotifyRequestExecutor} retries the commands and refreshes on its timer, without holding
+ * a thread, and the periodic polls run again on their next period.
+ * The requests rejected by the budget, and how long they were asked to wait, are recorded in the
+ * {@link SpotifyApiMetrics} of the account.
+ *
+ * @author agent - Initial contribution
+ */
+public class RateLimitedHttpManager implements IHttpManager {
+
+    private final Logger logger = LoggerFactory.getLogger(RateLimitedHttpManager.class);
+
+    /** Tokens the refreshes leave for the commands. */
+    private static final int REFRESH_RESERVED_TOKENS = 5;
+    /** Tokens the periodic polls leave for the commands and refreshes. */
+    private static final int BACKGROUND_RESERVED_TOKENS = 10;
+
+    private final IHttpManager delegate;
+    private final RequestBudget budget;
+    private final SpotifyApiMetrics metrics;
+
+    public RateLimitedHttpManager(IHttpManager delegate, RequestBudget budget, SpotifyApiMetrics metrics) {
+        this.delegate = delegate;
+        this.budget = budget;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String get(URI uri, Header[] headers) throws IOException, SpotifyWebApiException {
+        return execute(uri, () -> delegate.get(uri, headers));
+    }
+
+    @Override
+    public String post(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return execute(uri, () -> delegate.post(uri, headers, body));
+    }
+
+    @Override
+    public String put(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return execute(uri, () -> delegate.put(uri, headers, body));
+    }
+
+    @Override
+    public String delete(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        return execute(uri, () -> delegate.delete(uri, headers, body));
+    }
+
+    private String execute(URI uri, HttpCall call) throws IOException, SpotifyWebApiException {
+        RequestPriority priority = SpotifyRequestExecutor.getCurrentPriority();
+        long retryAfterMs;
+        switch (priority) {
+            case BACKGROUND:
+                retryAfterMs = budget.tryAcquire(BACKGROUND_RESERVED_TOKENS);
+                break;
+            case REFRESH:
+                retryAfterMs = budget.tryAcquire(REFRESH_RESERVED_TOKENS);
+                break;
+            default:
+                retryAfterMs = budget.tryAcquire(0);
+                break;
+        }
+        if (retryAfterMs > 0) {
+            metrics.recordRateLimitRejected(retryAfterMs);
+            logger.debug("Request budget of client '{}' too low for {} requests, skipping request to '{}'",
+                    budget.getClientId(), priority, uri.getPath());
+            throw new RequestBudgetExhaustedException(
+                    String.format("Request budget exhausted, retry in %d ms", retryAfterMs), retryAfterMs);
+        }
+
+        try {
+            return call.execute();
+        } catch (TooManyRequestsException e) {
+            logger.warn("Spotify API rate limit reached for client '{}', pausing requests for {} s",
+                    budget.getClientId(), e.getRetryAfter());
+            budget.pause(e.getRetryAfter());
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    interface HttpCall {
+        String execute() throws IOException, SpotifyWebApiException;
+    }
+
+}
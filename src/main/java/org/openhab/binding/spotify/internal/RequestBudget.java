@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link RequestBudget} is the token bucket shared by all the Spotify things using the same client ID.
+ * Besides the regular budget, all the traffic of the client is paused when the Web API answers with a
+ * 429 (Too Many Requests) until the received Retry-After time has elapsed. A request may be granted only while
+ * some tokens are left over, which keeps that reserve for the requests of higher priority.
+ *
+ * @author agent - Initial contribution
+ */
+public class RequestBudget {
+
+    private final String clientId;
+    private final int capacity;
+    private final long nanosPerToken;
+
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong tooManyRequestsCount = new AtomicLong();
+
+    public RequestBudget(String clientId, int capacity, int requestsPerSecond) {
+        this.clientId = clientId;
+        this.capacity = capacity;
+        this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+        this.pausedUntil = this.lastRefill;
+    }
+
+    /**
+     * Takes a request from the budget if more than the given reserve of tokens is available. It never waits, so
+     * the threads sending the requests are not held while the budget is exhausted.
+     *
+     * @return 0 if the request was granted, otherwise the time (in ms) until it could be
+     */
+    public long tryAcquire(int reservedTokens) {
+        long waitNanos = reserve(reservedTokens);
+        if (waitNanos == 0) {
+            requestCount.incrementAndGet();
+            return 0;
+        }
+        rejectedCount.incrementAndGet();
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    }
+
+    /**
+     * Pauses all the requests of this client for the given Retry-After time.
+     */
+    public synchronized void pause(int retryAfterSeconds) {
+        tooManyRequestsCount.incrementAndGet();
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.max(1, retryAfterSeconds));
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+        tokens = 0;
+    }
+
+    public synchronized boolean isPaused() {
+        return pausedUntil - System.nanoTime() > 0;
+    }
+
+    /**
+     * Returns the time (in ms) until the pause caused by a 429 answer ends, 0 if the client is not paused.
+     */
+    public synchronized long getRemainingPauseMs() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(pausedUntil - System.nanoTime()));
+    }
+
+    private synchronized long reserve(int reservedTokens) {
+        long now = System.nanoTime();
+        if (pausedUntil - now > 0) {
+            return pausedUntil - now;
+        }
+
+        tokens = Math.min(capacity, tokens + (double) (now - lastRefill) / nanosPerToken);
+        lastRefill = now;
+        if (tokens >= 1 + reservedTokens) {
+            tokens--;
+            return 0;
+        }
+        return (long) ((1 + reservedTokens - tokens) * nanosPerToken);
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    /** Number of requests granted by the budget. */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /** Number of requests rejected locally because the budget was exhausted. */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /** Number of 429 (Too Many Requests) answers received from the Web API. */
+    public long getTooManyRequestsCount() {
+        return tooManyRequestsCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("client=%s, requests=%d, rejected=%d, tooManyRequests=%d", clientId, getRequestCount(),
+                getRejectedCount(), getTooManyRequestsCount());
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wrapper.spotify.IHttpManager;
+
+/**
+ * The {@link RequestDeadlines} holds the deadlines of the Web API requests of one account: a default deadline
+ * and optional deadlines per endpoint, configured as a comma separated list of <code>path=ms</code> entries
+ * (e.g. <code>/v1/me/player=4000,/v1/me/playlists=20000</code>). The entry with the longest path that prefixes
+ * the path of a request applies. The deadlines are enforced by the http manager returned by
+ * {@link #createHttpManager}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RequestDeadlines {
+
+    private final Logger logger = LoggerFactory.getLogger(RequestDeadlines.class);
+
+    private final long defaultDeadlineMs;
+    /** Endpoint deadlines by path, in reverse order so that a longer path comes before its prefixes. */
+    private final TreeMap<String, Long> endpointDeadlines = new TreeMap<>((a, b) -> b.compareTo(a));
+
+    /**
+     * @param defaultDeadlineMs deadline of the requests without an endpoint deadline
+     * @param endpointDeadlines the endpoint deadlines, malformed entries are ignored
+     */
+    public RequestDeadlines(long defaultDeadlineMs, String endpointDeadlines) {
+        this.defaultDeadlineMs = defaultDeadlineMs;
+        if (endpointDeadlines == null) {
+            return;
+        }
+        for (String entry : endpointDeadlines.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            String[] pathAndDeadline = entry.split("=");
+            try {
+                if (pathAndDeadline.length != 2 || !pathAndDeadline[0].trim().startsWith("/")) {
+                    throw new NumberFormatException();
+                }
+                long deadlineMs = Long.parseLong(pathAndDeadline[1].trim());
+                if (deadlineMs <= 0) {
+                    throw new NumberFormatException();
+                }
+                this.endpointDeadlines.put(pathAndDeadline[0].trim(), deadlineMs);
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring malformed endpoint deadline '{}', expected '/path=ms'", entry.trim());
+            }
+        }
+    }
+
+    /**
+     * Returns an http manager that aborts the requests still running when their deadline expires.
+     */
+    public IHttpManager createHttpManager(IHttpManager delegate, SpotifyRequestExecutor requestExecutor) {
+        return new DeadlineHttpManager(delegate, this, requestExecutor);
+    }
+
+    /**
+     * Returns the deadline (in ms) of the requests to the given path.
+     */
+    public long getDeadlineMs(String path) {
+        for (Map.Entry<String, Long> entry : endpointDeadlines.tailMap(path, true).entrySet()) {
+            if (path.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return defaultDeadlineMs;
+    }
+
+    /**
+     * Returns the longest of the deadlines, i.e. the longest time a request can be pending.
+     */
+    public long getMaxDeadlineMs() {
+        long maxDeadlineMs = defaultDeadlineMs;
+        for (long deadlineMs : endpointDeadlines.values()) {
+            maxDeadlineMs = Math.max(maxDeadlineMs, deadlineMs);
+        }
+        return maxDeadlineMs;
+    }
+
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+/**
+ * The {@link RequestPriority} is the lane a Web API request runs in. The {@link SpotifyRequestExecutor} runs the
+ * interactive requests on threads of their own and the other requests in priority order, and the
+ * {@link RateLimitedHttpManager} keeps part of the {@link RequestBudget} for the higher priorities.
+ *
+ * @author agent - Initial contribution
+ */
+public enum RequestPriority {
+
+    /** Requests a user is waiting for: player commands, authorization and access token refreshes. */
+    INTERACTIVE,
+
+    /** Polls refreshing the state right after a command changed it. */
+    REFRESH,
+
+    /** Periodic polls, deferred or dropped when the budget is tight. */
+    BACKGROUND
+
+}
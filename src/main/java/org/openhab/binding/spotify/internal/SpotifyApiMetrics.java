@@ -0,0 +1,326 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.gson.Gson;
+import com.wrapper.spotify.IHttpManager;
+
+/**
+ * The {@link SpotifyApiMetrics} collects the metrics of the Spotify Web API requests of one account: a latency
+ * histogram and the result counters per endpoint, the time spent waiting for the request budget and the access
+ * token refreshes. The requests are measured by the http manager returned by {@link #createHttpManager}, so the
+ * calls of the handler and of the {@link PlaybackControl} are all covered. {@link #getSnapshot()} returns a
+ * consistent enough copy to display or log.
+ *
+ * @author agent - Initial contribution
+ */
+public class SpotifyApiMetrics {
+
+    /** Upper bounds (in ms) of the latency histogram buckets, the last bucket takes everything above. */
+    private static final long[] LATENCY_BUCKETS_MS = { 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+    private final Gson gson = new Gson();
+
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final AtomicLong rateLimitWaitMs = new AtomicLong();
+    private final AtomicLong rateLimitRejected = new AtomicLong();
+    private final AtomicLong tokenRefreshes = new AtomicLong();
+    private final AtomicLong tokenRefreshFailures = new AtomicLong();
+
+    /**
+     * Returns an http manager that measures every request before handing it to the delegate manager.
+     */
+    public IHttpManager createHttpManager(IHttpManager delegate) {
+        return new MeasuringHttpManager(delegate, this);
+    }
+
+    /**
+     * Records the result of a request.
+     *
+     * @param endpoint the method and path of the request, e.g. <code>GET /v1/me/player</code>
+     * @param latencyMs the time until the response was received
+     * @param statusCode the status code of the response, 0 if no response was received
+     */
+    public void recordRequest(String endpoint, long latencyMs, int statusCode) {
+        endpoints.computeIfAbsent(endpoint, e -> new EndpointMetrics()).record(latencyMs, statusCode);
+    }
+
+    /**
+     * Records a request rejected by the request budget, with the time (in ms) it was asked to wait before a retry.
+     */
+    public void recordRateLimitRejected(long retryAfterMs) {
+        rateLimitWaitMs.addAndGet(retryAfterMs);
+        rateLimitRejected.incrementAndGet();
+    }
+
+    public void recordTokenRefresh(boolean success) {
+        if (success) {
+            tokenRefreshes.incrementAndGet();
+        } else {
+            tokenRefreshFailures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the given latency percentile (0-100) of one endpoint, without taking a whole snapshot.
+     *
+     * @return the percentile (in ms), or -1 if the endpoint has fewer than the given number of requests
+     */
+    public long getLatencyPercentileMs(String endpoint, int percentile, long minRequests) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        if (metrics == null) {
+            return -1;
+        }
+        EndpointSnapshot snapshot = metrics.snapshot();
+        return snapshot.getRequests() >= minRequests ? snapshot.getLatencyPercentileMs(percentile) : -1;
+    }
+
+    public Snapshot getSnapshot() {
+        Map<String, EndpointSnapshot> endpointSnapshots = new TreeMap<>();
+        for (Map.Entry<String, EndpointMetrics> endpoint : endpoints.entrySet()) {
+            endpointSnapshots.put(endpoint.getKey(), endpoint.getValue().snapshot());
+        }
+        return new Snapshot(endpointSnapshots, rateLimitWaitMs.get(), rateLimitRejected.get(), tokenRefreshes.get(),
+                tokenRefreshFailures.get());
+    }
+
+    /**
+     * Returns the snapshot as a compact JSON object.
+     */
+    public String toJson(Snapshot snapshot) {
+        return gson.toJson(snapshot);
+    }
+
+    private static class EndpointMetrics {
+        private final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BUCKETS_MS.length + 1);
+        private final AtomicLong totalLatencyMs = new AtomicLong();
+        private final AtomicLong maxLatencyMs = new AtomicLong();
+        private final AtomicLong success = new AtomicLong();
+        private final AtomicLong clientErrors = new AtomicLong();
+        private final AtomicLong tooManyRequests = new AtomicLong();
+        private final AtomicLong serverErrors = new AtomicLong();
+        private final AtomicLong networkErrors = new AtomicLong();
+
+        void record(long latencyMs, int statusCode) {
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS_MS.length && latencyMs > LATENCY_BUCKETS_MS[bucket]) {
+                bucket++;
+            }
+            latencyBuckets.incrementAndGet(bucket);
+            totalLatencyMs.addAndGet(latencyMs);
+            maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+
+            if (statusCode == 0) {
+                networkErrors.incrementAndGet();
+            } else if (statusCode == 429) {
+                tooManyRequests.incrementAndGet();
+            } else if (statusCode >= 500) {
+                serverErrors.incrementAndGet();
+            } else if (statusCode >= 400) {
+                clientErrors.incrementAndGet();
+            } else {
+                success.incrementAndGet();
+            }
+        }
+
+        EndpointSnapshot snapshot() {
+            long[] buckets = new long[latencyBuckets.length()];
+            long count = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = latencyBuckets.get(i);
+                count += buckets[i];
+            }
+            return new EndpointSnapshot(count, buckets, totalLatencyMs.get(), maxLatencyMs.get(), success.get(),
+                    clientErrors.get(), tooManyRequests.get(), serverErrors.get(), networkErrors.get());
+        }
+    }
+
+    /**
+     * The metrics of one endpoint at one point in time.
+     */
+    public static final class EndpointSnapshot {
+        private final long requests;
+        private final long[] latencyBuckets;
+        private final long totalLatencyMs;
+        private final long maxLatencyMs;
+        private final long success;
+        private final long clientErrors;
+        private final long tooManyRequests;
+        private final long serverErrors;
+        private final long networkErrors;
+
+        EndpointSnapshot(long requests, long[] latencyBuckets, long totalLatencyMs, long maxLatencyMs, long success,
+                long clientErrors, long tooManyRequests, long serverErrors, long networkErrors) {
+            this.requests = requests;
+            this.latencyBuckets = latencyBuckets;
+            this.totalLatencyMs = totalLatencyMs;
+            this.maxLatencyMs = maxLatencyMs;
+            this.success = success;
+            this.clientErrors = clientErrors;
+            this.tooManyRequests = tooManyRequests;
+            this.serverErrors = serverErrors;
+            this.networkErrors = networkErrors;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * Returns the number of requests per latency bucket. Bucket i counts the requests that took at most
+         * {@link #getLatencyBucketBoundMs(int)} ms.
+         */
+        public long[] getLatencyBuckets() {
+            return latencyBuckets.clone();
+        }
+
+        public long getAverageLatencyMs() {
+            return requests > 0 ? totalLatencyMs / requests : 0;
+        }
+
+        public long getMaxLatencyMs() {
+            return maxLatencyMs;
+        }
+
+        /**
+         * Returns the upper bound of the latency bucket holding the given percentile (0-100) of the requests.
+         */
+        public long getLatencyPercentileMs(int percentile) {
+            return SpotifyApiMetrics.getLatencyPercentileMs(latencyBuckets, requests, percentile, maxLatencyMs);
+        }
+
+        public long getSuccess() {
+            return success;
+        }
+
+        public long getClientErrors() {
+            return clientErrors;
+        }
+
+        public long getTooManyRequests() {
+            return tooManyRequests;
+        }
+
+        public long getServerErrors() {
+            return serverErrors;
+        }
+
+        public long getNetworkErrors() {
+            return networkErrors;
+        }
+
+        public long getErrors() {
+            return clientErrors + tooManyRequests + serverErrors + networkErrors;
+        }
+    }
+
+    /**
+     * The metrics of an account at one point in time.
+     */
+    public static final class Snapshot {
+        private final Map<String, EndpointSnapshot> endpoints;
+        private final long rateLimitWaitMs;
+        private final long rateLimitRejected;
+        private final long tokenRefreshes;
+        private final long tokenRefreshFailures;
+
+        Snapshot(Map<String, EndpointSnapshot> endpoints, long rateLimitWaitMs, long rateLimitRejected,
+                long tokenRefreshes, long tokenRefreshFailures) {
+            this.endpoints = Collections.unmodifiableMap(endpoints);
+            this.rateLimitWaitMs = rateLimitWaitMs;
+            this.rateLimitRejected = rateLimitRejected;
+            this.tokenRefreshes = tokenRefreshes;
+            this.tokenRefreshFailures = tokenRefreshFailures;
+        }
+
+        public Map<String, EndpointSnapshot> getEndpoints() {
+            return endpoints;
+        }
+
+        public long getRequests() {
+            long requests = 0;
+            for (EndpointSnapshot endpoint : endpoints.values()) {
+                requests += endpoint.getRequests();
+            }
+            return requests;
+        }
+
+        public long getErrors() {
+            long errors = 0;
+            for (EndpointSnapshot endpoint : endpoints.values()) {
+                errors += endpoint.getErrors();
+            }
+            return errors;
+        }
+
+        /**
+         * Returns the given latency percentile (0-100) over the requests of all the endpoints.
+         */
+        public long getLatencyPercentileMs(int percentile) {
+            long[] buckets = new long[LATENCY_BUCKETS_MS.length + 1];
+            long requests = 0;
+            long maxLatencyMs = 0;
+            for (EndpointSnapshot endpoint : endpoints.values()) {
+                for (int i = 0; i < buckets.length; i++) {
+                    buckets[i] += endpoint.latencyBuckets[i];
+                }
+                requests += endpoint.requests;
+                maxLatencyMs = Math.max(maxLatencyMs, endpoint.maxLatencyMs);
+            }
+            return SpotifyApiMetrics.getLatencyPercentileMs(buckets, requests, percentile, maxLatencyMs);
+        }
+
+        public long getRateLimitWaitMs() {
+            return rateLimitWaitMs;
+        }
+
+        public long getRateLimitRejected() {
+            return rateLimitRejected;
+        }
+
+        public long getTokenRefreshes() {
+            return tokenRefreshes;
+        }
+
+        public long getTokenRefreshFailures() {
+            return tokenRefreshFailures;
+        }
+    }
+
+    public static long getLatencyBucketBoundMs(int bucket) {
+        return bucket < LATENCY_BUCKETS_MS.length ? LATENCY_BUCKETS_MS[bucket] : Long.MAX_VALUE;
+    }
+
+    private static long getLatencyPercentileMs(long[] buckets, long requests, int percentile, long maxLatencyMs) {
+        if (requests == 0) {
+            return 0;
+        }
+        long rank = (requests * percentile + 99) / 100;
+        long count = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            count += buckets[i];
+            if (count >= rank) {
+                return Math.min(getLatencyBucketBoundMs(i), maxLatencyMs);
+            }
+        }
+        return maxLatencyMs;
+    }
+
+}
@@ -37,12 +37,39 @@ public class SpotifyConfiguration {
     /** Refresh interval for playback information. */
     public int playbackRefreshInterval;
 
+    /** Maximum refresh interval for playback information while nothing is playing. */
+    public int playbackIdleRefreshInterval;
+
+    /** Refresh interval for the locally interpolated track progress. */
+    public int progressRefreshInterval;
+
+    /** Whether the channels are updated with the expected result of a command before it is confirmed. */
+    public boolean optimisticUpdates;
+
     /** Refresh interval for devices information. */
     public int devicesRefreshInterval;
 
     /** Refresh interval for playlists information. */
     public int playlistsRefreshInterval;
 
+    /** For testing only: base URI the Web API and token requests are sent to instead of Spotify, empty for Spotify. */
+    public String apiBaseUri;
+
+    /** Longest time (in ms) a Web API request may take before it is aborted. */
+    public int requestDeadline;
+
+    /** Deadlines of specific endpoints, as comma separated <code>path=ms</code> entries. */
+    public String endpointDeadlines;
+
+    /** Latency percentile of an endpoint after which a GET request is hedged, 0 to disable hedging. */
+    public int hedgePercentile;
+
     /** Refresh token from the Spotify API connection. */
     public String refreshToken;
+
+    /** Last access token from the Spotify API connection. */
+    public String accessToken;
+
+    /** Expiry time of the last access token, in seconds since the epoch. */
+    public long accessTokenExpiry;
 }
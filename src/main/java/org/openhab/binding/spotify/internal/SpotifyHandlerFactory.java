@@ -12,18 +12,24 @@
  */
 package org.openhab.binding.spotify.internal;
 
-import static org.openhab.binding.spotify.SpotifyBindingConstants.THING_TYPE_SPOTIFY;
+import static org.openhab.binding.spotify.SpotifyBindingConstants.*;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.thing.Bridge;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandlerFactory;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.thing.binding.ThingHandlerFactory;
+import org.openhab.binding.spotify.handler.SpotifyBridgeHandler;
+import org.openhab.binding.spotify.handler.SpotifyDeviceHandler;
 import org.openhab.binding.spotify.handler.SpotifyHandler;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
@@ -36,10 +42,15 @@ import org.osgi.service.component.annotations.Reference;
 @Component(service = ThingHandlerFactory.class, immediate = true, configurationPid = "binding.spotify")
 public class SpotifyHandlerFactory extends BaseThingHandlerFactory {
 
-    private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Collections.singleton(THING_TYPE_SPOTIFY);
+    private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Collections
+            .unmodifiableSet(new HashSet<>(Arrays.asList(THING_TYPE_SPOTIFY, THING_TYPE_ACCOUNT, THING_TYPE_DEVICE)));
 
     private SpotifyStateDescriptionOptionsProvider stateDescriptionProvider;
 
+    private final SpotifyRequestGovernor requestGovernor = new SpotifyRequestGovernor();
+    private final SpotifyRequestExecutor requestExecutor = new SpotifyRequestExecutor();
+    private final SpotifyHttpTransport httpTransport = new SpotifyHttpTransport();
+
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
         return SUPPORTED_THING_TYPES_UIDS.contains(thingTypeUID);
@@ -50,12 +61,24 @@ public class SpotifyHandlerFactory extends BaseThingHandlerFactory {
         ThingTypeUID thingTypeUID = thing.getThingTypeUID();
 
         if (THING_TYPE_SPOTIFY.equals(thingTypeUID)) {
-            return new SpotifyHandler(thing, stateDescriptionProvider);
+            return new SpotifyHandler(thing, stateDescriptionProvider, requestGovernor, requestExecutor, httpTransport);
+        } else if (THING_TYPE_ACCOUNT.equals(thingTypeUID)) {
+            return new SpotifyBridgeHandler((Bridge) thing, stateDescriptionProvider, requestGovernor,
+                    requestExecutor, httpTransport);
+        } else if (THING_TYPE_DEVICE.equals(thingTypeUID)) {
+            return new SpotifyDeviceHandler(thing, stateDescriptionProvider);
         }
 
         return null;
     }
 
+    @Override
+    protected void deactivate(ComponentContext componentContext) {
+        requestExecutor.shutdown();
+        httpTransport.close();
+        super.deactivate(componentContext);
+    }
+
     @Reference
     protected void setDynamicStateDescriptionProvider(SpotifyStateDescriptionOptionsProvider provider) {
         this.stateDescriptionProvider = provider;
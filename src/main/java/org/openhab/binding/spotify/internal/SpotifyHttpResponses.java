@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.util.EntityUtils;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+import com.wrapper.spotify.exceptions.detailed.BadGatewayException;
+import com.wrapper.spotify.exceptions.detailed.BadRequestException;
+import com.wrapper.spotify.exceptions.detailed.ForbiddenException;
+import com.wrapper.spotify.exceptions.detailed.InternalServerErrorException;
+import com.wrapper.spotify.exceptions.detailed.NotFoundException;
+import com.wrapper.spotify.exceptions.detailed.ServiceUnavailableException;
+import com.wrapper.spotify.exceptions.detailed.TooManyRequestsException;
+import com.wrapper.spotify.exceptions.detailed.UnauthorizedException;
+
+/**
+ * The {@link SpotifyHttpResponses} class reads Spotify Web API responses the same way the
+ * {@link com.wrapper.spotify.SpotifyHttpManager} does, so that the binding's own http managers
+ * raise the same exceptions as the library.
+ *
+ * @author agent - Initial contribution
+ */
+public final class SpotifyHttpResponses {
+
+    private SpotifyHttpResponses() {
+    }
+
+    /**
+     * Returns the body of a successful response.
+     *
+     * @throws SpotifyWebApiException the detailed exception matching the status code of an error response
+     */
+    public static String getResponseBody(HttpResponse response) throws IOException, SpotifyWebApiException {
+        String responseBody = response.getEntity() != null ? EntityUtils.toString(response.getEntity(), "UTF-8")
+                : null;
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode < HttpStatus.SC_BAD_REQUEST) {
+            return responseBody;
+        }
+
+        String errorMessage = getErrorMessage(responseBody, response.getStatusLine().getReasonPhrase());
+        switch (statusCode) {
+            case HttpStatus.SC_BAD_REQUEST:
+                throw new BadRequestException(errorMessage);
+            case HttpStatus.SC_UNAUTHORIZED:
+                throw new UnauthorizedException(errorMessage);
+            case HttpStatus.SC_FORBIDDEN:
+                throw new ForbiddenException(errorMessage);
+            case HttpStatus.SC_NOT_FOUND:
+                throw new NotFoundException(errorMessage);
+            case 429:
+                throw new TooManyRequestsException(errorMessage, getRetryAfter(response));
+            case HttpStatus.SC_INTERNAL_SERVER_ERROR:
+                throw new InternalServerErrorException(errorMessage);
+            case HttpStatus.SC_BAD_GATEWAY:
+                throw new BadGatewayException(errorMessage);
+            case HttpStatus.SC_SERVICE_UNAVAILABLE:
+                throw new ServiceUnavailableException(errorMessage);
+            default:
+                throw new SpotifyWebApiException(errorMessage);
+        }
+    }
+
+    private static String getErrorMessage(String responseBody, String reasonPhrase) {
+        if (responseBody == null || responseBody.isEmpty()) {
+            return reasonPhrase;
+        }
+        try {
+            JsonObject jsonObject = new JsonParser().parse(responseBody).getAsJsonObject();
+            if (jsonObject.has("error_description")) {
+                return jsonObject.get("error_description").getAsString();
+            }
+            JsonElement error = jsonObject.get("error");
+            if (error != null && error.isJsonObject() && error.getAsJsonObject().has("message")) {
+                return error.getAsJsonObject().get("message").getAsString();
+            }
+        } catch (JsonParseException | IllegalStateException e) {
+            // not a JSON error object, keep the reason phrase
+        }
+        return reasonPhrase;
+    }
+
+    private static int getRetryAfter(HttpResponse response) {
+        Header retryAfter = response.getFirstHeader("Retry-After");
+        if (retryAfter != null) {
+            try {
+                return Integer.parseInt(retryAfter.getValue().trim());
+            } catch (NumberFormatException e) {
+                // ignore, use the default below
+            }
+        }
+        return 1;
+    }
+
+}
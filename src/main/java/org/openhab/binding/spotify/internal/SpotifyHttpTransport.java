@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wrapper.spotify.IHttpManager;
+import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+
+/**
+ * The {@link SpotifyHttpTransport} is the HTTP transport shared by the Spotify Web API requests of all the things
+ * of the binding. It keeps a bounded pool of persistent (keep-alive) connections, so the TLS handshakes are not
+ * repeated for every request, asks for gzip compressed responses and applies explicit connect and read timeouts.
+ * It is owned by the {@link SpotifyHandlerFactory}.
+ *
+ * @author agent - Initial contribution
+ */
+public class SpotifyHttpTransport implements IHttpManager {
+
+    private static final int MAX_CONNECTIONS = 20;
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 10;
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int READ_TIMEOUT_MS = 10000;
+    private static final int CONNECTION_REQUEST_TIMEOUT_MS = 5000;
+    private static final long IDLE_CONNECTION_TIMEOUT_S = 30;
+
+    private final Logger logger = LoggerFactory.getLogger(SpotifyHttpTransport.class);
+
+    private final CloseableHttpClient httpClient;
+
+    public SpotifyHttpTransport() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+
+        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(CONNECT_TIMEOUT_MS)
+                .setSocketTimeout(READ_TIMEOUT_MS).setConnectionRequestTimeout(CONNECTION_REQUEST_TIMEOUT_MS)
+                .build();
+
+        // Content compression (Accept-Encoding: gzip,deflate and transparent decoding) is enabled by default
+        this.httpClient = HttpClients.custom().useSystemProperties().setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig).evictExpiredConnections()
+                .evictIdleConnections(IDLE_CONNECTION_TIMEOUT_S, TimeUnit.SECONDS).build();
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    @Override
+    public String get(URI uri, Header[] headers) throws IOException, SpotifyWebApiException {
+        return execute(new HttpGet(uri), headers);
+    }
+
+    @Override
+    public String post(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        HttpPost httpPost = new HttpPost(uri);
+        httpPost.setEntity(body);
+        return execute(httpPost, headers);
+    }
+
+    @Override
+    public String put(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        HttpPut httpPut = new HttpPut(uri);
+        httpPut.setEntity(body);
+        return execute(httpPut, headers);
+    }
+
+    @Override
+    public String delete(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        HttpDeleteWithBody httpDelete = new HttpDeleteWithBody(uri);
+        httpDelete.setEntity(body);
+        return execute(httpDelete, headers);
+    }
+
+    public void close() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            logger.debug("Error closing the http client: {}", e.getMessage());
+        }
+    }
+
+    private String execute(HttpUriRequest request, Header[] headers) throws IOException, SpotifyWebApiException {
+        request.setHeaders(headers);
+        InFlightRequest.attach(request);
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            return SpotifyHttpResponses.getResponseBody(response);
+        }
+    }
+
+    /**
+     * Some Web API endpoints (like removing tracks from a playlist) take a body on DELETE requests.
+     */
+    private static class HttpDeleteWithBody extends HttpEntityEnclosingRequestBase {
+
+        HttpDeleteWithBody(URI uri) {
+            setURI(uri);
+        }
+
+        @Override
+        public String getMethod() {
+            return "DELETE";
+        }
+    }
+
+}
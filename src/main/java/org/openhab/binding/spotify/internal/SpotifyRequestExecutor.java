@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+import com.wrapper.spotify.requests.IRequest;
+
+/**
+ * The {@link SpotifyRequestExecutor} runs the Spotify Web API requests of all the things on a dedicated,
+ * bounded thread pool and hands their results back as {@link CompletableFuture}s, so that neither the
+ * openHAB scheduler threads nor the framework threads wait for Spotify responses. Every request runs in the lane
+ * of its {@link RequestPriority}: the interactive requests have threads of their own, so a player command never
+ * waits behind polls, and the other requests share the pool in priority order, the refreshes that follow a
+ * command before the periodic polls. A command or refresh rejected by the exhausted {@link RequestBudget} is
+ * retried on the timer once the budget may have a token for it, for a limited time, so no thread waits for the
+ * budget. It also provides the timer of the request deadlines and the few threads the hedged attempts of slow
+ * requests run on.
+ * It is owned by the {@link SpotifyHandlerFactory}.
+ *
+ * @author agent - Initial contribution
+ */
+public class SpotifyRequestExecutor {
+
+    private static final int POOL_SIZE = 6;
+    private static final int INTERACTIVE_POOL_SIZE = 2;
+    /** Maximum number of hedged attempts running at the same time, further hedges are skipped. */
+    private static final int MAX_HEDGED_REQUESTS = 4;
+    private static final long HEDGE_THREAD_KEEP_ALIVE_S = 60;
+    /** Longest time (in ms) a command or refresh is retried for while the request budget is exhausted. */
+    private static final long MAX_BUDGET_RETRY_MS = 2000;
+
+    private static final ThreadLocal<RequestPriority> CURRENT_PRIORITY = new ThreadLocal<>();
+
+    private final ExecutorService executor;
+    private final ExecutorService interactiveExecutor;
+    private final ScheduledExecutorService timer;
+    private final ThreadPoolExecutor hedgeExecutor;
+
+    /** Keeps the requests of a lane in submission order. */
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SpotifyRequestExecutor() {
+        this.executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), createThreadFactory("spotify-request-"));
+        this.interactiveExecutor = Executors.newFixedThreadPool(INTERACTIVE_POOL_SIZE,
+                createThreadFactory("spotify-command-"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(createThreadFactory("spotify-request-timer-"));
+        this.hedgeExecutor = new ThreadPoolExecutor(0, MAX_HEDGED_REQUESTS, HEDGE_THREAD_KEEP_ALIVE_S,
+                TimeUnit.SECONDS, new SynchronousQueue<>(), createThreadFactory("spotify-hedge-"));
+    }
+
+    private static ThreadFactory createThreadFactory(String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Returns the priority of the request running on the current thread, {@link RequestPriority#INTERACTIVE} for
+     * the threads not owned by this executor.
+     */
+    static RequestPriority getCurrentPriority() {
+        RequestPriority priority = CURRENT_PRIORITY.get();
+        return priority != null ? priority : RequestPriority.INTERACTIVE;
+    }
+
+    /**
+     * Executes the request asynchronously.
+     *
+     * @return a future completed with the parsed response, or exceptionally with the
+     *         {@link SpotifyWebApiException} or {@link IOException} of the request
+     */
+    public <T> CompletableFuture<T> execute(RequestPriority priority, IRequest request) {
+        return supply(priority, () -> request.<T> execute());
+    }
+
+    /**
+     * Runs a blocking call to the Spotify Web API asynchronously.
+     *
+     * @return a future completed with the result of the call, or exceptionally with its
+     *         {@link SpotifyWebApiException} or {@link IOException}
+     */
+    public <T> CompletableFuture<T> supply(RequestPriority priority, SpotifyCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long retryDeadline = priority == RequestPriority.BACKGROUND ? System.nanoTime()
+                : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_BUDGET_RETRY_MS);
+        submit(priority, call, future, retryDeadline);
+        return future;
+    }
+
+    /**
+     * Runs the call in its lane. If the request budget rejects it, and it may still be retried at the time the
+     * budget should have a token for it, it is submitted again from the timer.
+     */
+    private <T> void submit(RequestPriority priority, SpotifyCall<T> call, CompletableFuture<T> future,
+            long retryDeadline) {
+        try {
+            lane(priority).execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (RequestBudgetExhaustedException e) {
+                    long retryAfterMs = e.getRetryAfterMs();
+                    if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryAfterMs) - retryDeadline > 0) {
+                        future.completeExceptionally(e);
+                        return;
+                    }
+                    try {
+                        timer.schedule(() -> submit(priority, call, future, retryDeadline), retryAfterMs,
+                                TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException rejected) {
+                        future.completeExceptionally(e);
+                    }
+                } catch (IOException | SpotifyWebApiException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Executes a GET request sent through a {@link ConditionalRequestHttpManager} and parses its response with
+     * the given parser, unless the response is unchanged since the previous request.
+     *
+     * @return a future completed with the parsed response, or with null if the response was not modified
+     */
+    public <T> CompletableFuture<T> executeIfModified(RequestPriority priority, IRequest request,
+            Function<String, T> parser) {
+        return supply(priority, () -> {
+            String json = request.getJson();
+            if (ConditionalRequestHttpManager.isNotModified()) {
+                return null;
+            }
+            return parser.apply(json);
+        });
+    }
+
+    private Executor lane(RequestPriority priority) {
+        if (priority == RequestPriority.INTERACTIVE) {
+            return task -> interactiveExecutor.execute(new PrioritizedTask(priority, 0, task));
+        }
+        return task -> executor.execute(new PrioritizedTask(priority, sequence.getAndIncrement(), task));
+    }
+
+    /**
+     * Runs a short task (like aborting a request) after the given delay, on the request timer.
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return timer.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs a hedged attempt of a request of the given priority if a hedge thread is free.
+     *
+     * @return whether the attempt was started
+     */
+    public boolean tryExecuteHedge(RequestPriority priority, Runnable attempt) {
+        try {
+            hedgeExecutor.execute(new PrioritizedTask(priority, 0, attempt));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        interactiveExecutor.shutdownNow();
+        timer.shutdownNow();
+        hedgeExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the actual failure of a future completed exceptionally.
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+
+    @FunctionalInterface
+    public interface SpotifyCall<T> {
+        T call() throws IOException, SpotifyWebApiException;
+    }
+
+    /**
+     * A task of a lane, ordered by priority and then by submission. It runs with its priority as the priority of
+     * the current thread.
+     */
+    private static class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final RequestPriority priority;
+        private final long sequence;
+        private final Runnable task;
+
+        PrioritizedTask(RequestPriority priority, long sequence, Runnable task) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            CURRENT_PRIORITY.set(priority);
+            try {
+                task.run();
+            } finally {
+                CURRENT_PRIORITY.remove();
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int result = priority.compareTo(other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.wrapper.spotify.IHttpManager;
+
+/**
+ * The {@link SpotifyRequestGovernor} keeps one {@link RequestBudget} per Spotify client ID, shared by all the
+ * things of the binding. It is owned by the {@link SpotifyHandlerFactory}.
+ *
+ * @author agent - Initial contribution
+ */
+public class SpotifyRequestGovernor {
+
+    private static final int BUDGET_CAPACITY = 30;
+    private static final int BUDGET_REQUESTS_PER_SECOND = 5;
+
+    private final Map<String, RequestBudget> budgets = new ConcurrentHashMap<>();
+
+    public RequestBudget getBudget(String clientId) {
+        return budgets.computeIfAbsent(clientId,
+                id -> new RequestBudget(id, BUDGET_CAPACITY, BUDGET_REQUESTS_PER_SECOND));
+    }
+
+    /**
+     * Returns an http manager that sends every request of the given client ID through its budget, recording the
+     * time waited in the given metrics.
+     */
+    public IHttpManager createHttpManager(String clientId, IHttpManager delegate, SpotifyApiMetrics metrics) {
+        return new RateLimitedHttpManager(delegate, getBudget(clientId), metrics);
+    }
+
+    public Collection<RequestBudget> getBudgets() {
+        return Collections.unmodifiableCollection(budgets.values());
+    }
+
+}
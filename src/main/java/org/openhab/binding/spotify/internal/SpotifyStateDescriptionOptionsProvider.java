@@ -8,10 +8,15 @@
  */
 package org.openhab.binding.spotify.internal;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.smarthome.core.thing.Channel;
@@ -24,6 +29,9 @@ import org.osgi.service.component.annotations.Deactivate;
 
 /**
  * Dynamic provider of state options while leaving other state description fields as original.
+ * The descriptions are built once per channel, original description and locale, and reused until the options of
+ * the channel change. Every {@link #setStateOptions} that changes the options bumps the version of the channel,
+ * which invalidates its cached descriptions.
  *
  * @author Aitor Iturrioz - Initial contribution
  */
@@ -32,20 +40,47 @@ import org.osgi.service.component.annotations.Deactivate;
         SpotifyStateDescriptionOptionsProvider.class }, immediate = true)
 public class SpotifyStateDescriptionOptionsProvider implements DynamicStateDescriptionProvider {
 
-    private final Map<ChannelUID, List<StateOption>> channelOptionsMap = new ConcurrentHashMap<>();
+    /** Bound of the cached descriptions per channel, there is usually one per locale in use. */
+    private static final int MAX_CACHED_DESCRIPTIONS = 8;
+
+    private final AtomicLong versionCounter = new AtomicLong();
+    private final Map<ChannelUID, ChannelOptions> channelOptionsMap = new ConcurrentHashMap<>();
 
     public void setStateOptions(ChannelUID channelUID, List<StateOption> options) {
-        channelOptionsMap.put(channelUID, options);
+        ChannelOptions current = channelOptionsMap.get(channelUID);
+        if (current != null && sameOptions(current.options, options)) {
+            return;
+        }
+        channelOptionsMap.put(channelUID, new ChannelOptions(versionCounter.incrementAndGet(),
+                Collections.unmodifiableList(new ArrayList<>(options))));
     }
 
     @Override
     public @Nullable StateDescription getStateDescription(Channel channel, @Nullable StateDescription original,
             @Nullable Locale locale) {
-        List<StateOption> options = channelOptionsMap.get(channel.getUID());
-        if (options == null) {
+        ChannelOptions channelOptions = channelOptionsMap.get(channel.getUID());
+        if (channelOptions == null) {
             return null;
         }
 
+        DescriptionKey key = new DescriptionKey(channelOptions.version, original, locale);
+        StateDescription description = channelOptions.descriptions.get(key);
+        if (description == null) {
+            if (channelOptions.descriptions.size() >= MAX_CACHED_DESCRIPTIONS) {
+                channelOptions.descriptions.clear();
+            }
+            description = createStateDescription(original, channelOptions.options);
+            channelOptions.descriptions.put(key, description);
+        }
+        return description;
+    }
+
+    @Deactivate
+    public void deactivate() {
+        channelOptionsMap.clear();
+    }
+
+    private StateDescription createStateDescription(@Nullable StateDescription original, List<StateOption> options) {
         if (original != null) {
             return new StateDescription(original.getMinimum(), original.getMaximum(), original.getStep(),
                     original.getPattern(), original.isReadOnly(), options);
@@ -53,9 +88,72 @@ public class SpotifyStateDescriptionOptionsProvider implements DynamicStateDescr
         return new StateDescription(null, null, null, null, false, options);
     }
 
-    @Deactivate
-    public void deactivate() {
-        channelOptionsMap.clear();
+    private boolean sameOptions(List<StateOption> current, List<StateOption> options) {
+        if (current.size() != options.size()) {
+            return false;
+        }
+        for (int i = 0; i < current.size(); i++) {
+            StateOption currentOption = current.get(i);
+            StateOption option = options.get(i);
+            if (!Objects.equals(currentOption.getValue(), option.getValue())
+                    || !Objects.equals(currentOption.getLabel(), option.getLabel())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class ChannelOptions {
+        private final long version;
+        private final List<StateOption> options;
+        private final Map<DescriptionKey, StateDescription> descriptions = new ConcurrentHashMap<>();
+
+        ChannelOptions(long version, List<StateOption> options) {
+            this.version = version;
+            this.options = options;
+        }
+    }
+
+    /**
+     * Identifies a cached description by the options version and the fields kept from the original description.
+     */
+    private static class DescriptionKey {
+        private final long version;
+        private final @Nullable BigDecimal minimum;
+        private final @Nullable BigDecimal maximum;
+        private final @Nullable BigDecimal step;
+        private final @Nullable String pattern;
+        private final boolean readOnly;
+        private final @Nullable Locale locale;
+
+        DescriptionKey(long version, @Nullable StateDescription original, @Nullable Locale locale) {
+            this.version = version;
+            this.minimum = original != null ? original.getMinimum() : null;
+            this.maximum = original != null ? original.getMaximum() : null;
+            this.step = original != null ? original.getStep() : null;
+            this.pattern = original != null ? original.getPattern() : null;
+            this.readOnly = original != null && original.isReadOnly();
+            this.locale = locale;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(version, minimum, maximum, step, pattern, readOnly, locale);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof DescriptionKey)) {
+                return false;
+            }
+            DescriptionKey other = (DescriptionKey) obj;
+            return version == other.version && readOnly == other.readOnly && Objects.equals(minimum, other.minimum)
+                    && Objects.equals(maximum, other.maximum) && Objects.equals(step, other.step)
+                    && Objects.equals(pattern, other.pattern) && Objects.equals(locale, other.locale);
+        }
     }
 
 }
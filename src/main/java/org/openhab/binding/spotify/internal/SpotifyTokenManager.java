@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wrapper.spotify.IHttpManager;
+import com.wrapper.spotify.SpotifyApi;
+import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+import com.wrapper.spotify.exceptions.detailed.BadRequestException;
+import com.wrapper.spotify.exceptions.detailed.ForbiddenException;
+import com.wrapper.spotify.exceptions.detailed.UnauthorizedException;
+import com.wrapper.spotify.model_objects.credentials.AuthorizationCodeCredentials;
+
+/**
+ * The {@link SpotifyTokenManager} owns the access token of a Spotify account. Concurrent refreshes are
+ * deduplicated into a single token request, the token is renewed shortly before it expires (with a random
+ * jitter, so the accounts of a client ID do not refresh at the same moment) and, through the http manager
+ * returned by {@link #createHttpManager(IHttpManager)}, requests rejected with a 401 are retried once
+ * with a fresh token. A renewal that fails with a network or server error is retried; one rejected by the
+ * accounts service (a revoked refresh token or invalid client credentials) stops the renewal.
+ *
+ * @author agent - Initial contribution
+ */
+public class SpotifyTokenManager {
+
+    /** Seconds before the expiry of the access token in which it is renewed. */
+    private static final long TOKEN_REFRESH_ANTICIPATION = 60;
+    private static final long MAX_RENEWAL_JITTER = 30;
+    /** Delay before retrying a failed renewal, in seconds. */
+    private static final long RENEWAL_RETRY_DELAY = 30;
+    private static final long REFRESH_TIMEOUT = 30;
+
+    private final Logger logger = LoggerFactory.getLogger(SpotifyTokenManager.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final SpotifyRequestExecutor requestExecutor;
+    private final AccessTokenListener listener;
+
+    private SpotifyApi spotifyApi;
+    private volatile String accessToken = "";
+    private CompletableFuture<String> refreshInProgress;
+    private ScheduledFuture<?> renewalJob;
+    /** Set once the account is disposed, so a refresh still in flight neither renews nor notifies. */
+    private boolean disposed;
+
+    public SpotifyTokenManager(ScheduledExecutorService scheduler, SpotifyRequestExecutor requestExecutor,
+            AccessTokenListener listener) {
+        this.scheduler = scheduler;
+        this.requestExecutor = requestExecutor;
+        this.listener = listener;
+    }
+
+    /**
+     * Returns an http manager that retries the requests rejected with a 401 with a fresh access token.
+     */
+    public IHttpManager createHttpManager(IHttpManager delegate) {
+        return new TokenRefreshingHttpManager(delegate, this);
+    }
+
+    /**
+     * Sets the API whose access token is managed. It must be built with the http manager returned by
+     * {@link #createHttpManager(IHttpManager)} and have its refresh token set.
+     */
+    public void setSpotifyApi(SpotifyApi spotifyApi) {
+        this.spotifyApi = spotifyApi;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    /**
+     * Uses a previously obtained access token if it is still valid, and schedules its renewal.
+     *
+     * @param expiresAt expiry time of the access token, in seconds since the epoch
+     * @return whether the access token is still valid and has been taken
+     */
+    public boolean setAccessToken(String accessToken, long expiresAt) {
+        long validFor = expiresAt - TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        if (accessToken.isEmpty() || validFor <= TOKEN_REFRESH_ANTICIPATION) {
+            return false;
+        }
+        applyAccessToken(accessToken);
+        scheduleRenewal(validFor);
+        return true;
+    }
+
+    /**
+     * Refreshes the access token in the background.
+     */
+    public CompletableFuture<String> refreshAccessTokenAsync() {
+        return requestExecutor.supply(RequestPriority.INTERACTIVE, this::refreshAccessToken);
+    }
+
+    /**
+     * Refreshes the access token, or waits for the refresh already in progress, and returns the new token.
+     */
+    public String refreshAccessToken() throws IOException, SpotifyWebApiException {
+        CompletableFuture<String> refresh;
+        boolean leader = false;
+        synchronized (this) {
+            if (refreshInProgress == null) {
+                refreshInProgress = new CompletableFuture<>();
+                leader = true;
+            }
+            refresh = refreshInProgress;
+        }
+
+        if (!leader) {
+            logger.debug("Waiting for the access token refresh in progress");
+            return awaitRefresh(refresh);
+        }
+
+        try {
+            logger.debug("Refreshing access token...");
+            AuthorizationCodeCredentials credentials = spotifyApi.authorizationCodeRefresh().build().execute();
+            String newAccessToken = credentials.getAccessToken();
+            int expiresIn = credentials.getExpiresIn();
+            applyAccessToken(newAccessToken);
+            refresh.complete(newAccessToken);
+            if (scheduleRenewal(expiresIn)) {
+                listener.accessTokenRefreshed(newAccessToken,
+                        TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + expiresIn);
+            }
+            return newAccessToken;
+        } catch (IOException | SpotifyWebApiException | RuntimeException e) {
+            refresh.completeExceptionally(e);
+            boolean notify = isAuthorizationRejected(e) ? stopRenewal()
+                    : scheduleRenewal(TOKEN_REFRESH_ANTICIPATION + RENEWAL_RETRY_DELAY);
+            if (notify) {
+                listener.accessTokenRefreshFailed(e);
+            }
+            throw e;
+        } finally {
+            synchronized (this) {
+                refreshInProgress = null;
+            }
+        }
+    }
+
+    /**
+     * Returns whether a refresh failed because the accounts service rejected the refresh token or the client
+     * credentials, which retrying does not fix.
+     */
+    public static boolean isAuthorizationRejected(Throwable cause) {
+        return cause instanceof BadRequestException || cause instanceof UnauthorizedException
+                || cause instanceof ForbiddenException;
+    }
+
+    public synchronized void dispose() {
+        disposed = true;
+        if (renewalJob != null) {
+            renewalJob.cancel(false);
+            renewalJob = null;
+        }
+    }
+
+    private String awaitRefresh(CompletableFuture<String> refresh) throws IOException, SpotifyWebApiException {
+        try {
+            return refresh.get(REFRESH_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the access token refresh", e);
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out waiting for the access token refresh", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SpotifyWebApiException) {
+                throw (SpotifyWebApiException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Access token refresh failed", cause);
+        }
+    }
+
+    private void applyAccessToken(String newAccessToken) {
+        accessToken = newAccessToken;
+        spotifyApi.setAccessToken(newAccessToken);
+    }
+
+    /**
+     * @return whether the renewal was stopped, which it is not once the account is disposed
+     */
+    private synchronized boolean stopRenewal() {
+        if (disposed) {
+            return false;
+        }
+        if (renewalJob != null) {
+            renewalJob.cancel(false);
+            renewalJob = null;
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the renewal was scheduled, which it is not once the account is disposed
+     */
+    private synchronized boolean scheduleRenewal(long expiresIn) {
+        if (disposed) {
+            logger.debug("Access token manager disposed, not scheduling the renewal");
+            return false;
+        }
+        if (renewalJob != null) {
+            renewalJob.cancel(false);
+        }
+        long jitter = ThreadLocalRandom.current().nextLong(MAX_RENEWAL_JITTER + 1);
+        long renewIn = Math.max(1, expiresIn - TOKEN_REFRESH_ANTICIPATION - jitter);
+        logger.debug("Access token expires in {} seconds. Refresh it in {} seconds", expiresIn, renewIn);
+        renewalJob = scheduler.schedule(() -> {
+            refreshAccessTokenAsync().exceptionally(e -> {
+                logger.debug("Error renewing the access token: {}", SpotifyRequestExecutor.unwrap(e).getMessage());
+                return null;
+            });
+        }, renewIn, TimeUnit.SECONDS);
+        return true;
+    }
+
+}
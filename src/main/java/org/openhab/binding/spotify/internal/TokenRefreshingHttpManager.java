@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2014,2018 by the respective copyright holders.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.spotify.internal;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.message.BasicHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.wrapper.spotify.IHttpManager;
+import com.wrapper.spotify.exceptions.SpotifyWebApiException;
+import com.wrapper.spotify.exceptions.detailed.UnauthorizedException;
+
+/**
+ * The {@link TokenRefreshingHttpManager} retries a request rejected with a 401 once, with the access token
+ * refreshed by the {@link SpotifyTokenManager}.
+ *
+ * @author agent - Initial contribution
+ */
+public class TokenRefreshingHttpManager implements IHttpManager {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final Logger logger = LoggerFactory.getLogger(TokenRefreshingHttpManager.class);
+
+    private final IHttpManager delegate;
+    private final SpotifyTokenManager tokenManager;
+
+    public TokenRefreshingHttpManager(IHttpManager delegate, SpotifyTokenManager tokenManager) {
+        this.delegate = delegate;
+        this.tokenManager = tokenManager;
+    }
+
+    @Override
+    public String get(URI uri, Header[] headers) throws IOException, SpotifyWebApiException {
+        try {
+            return delegate.get(uri, headers);
+        } catch (UnauthorizedException e) {
+            return delegate.get(uri, withFreshAccessToken(uri, headers, e));
+        }
+    }
+
+    @Override
+    public String post(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        try {
+            return delegate.post(uri, headers, body);
+        } catch (UnauthorizedException e) {
+            return delegate.post(uri, withFreshAccessToken(uri, headers, e), body);
+        }
+    }
+
+    @Override
+    public String put(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        try {
+            return delegate.put(uri, headers, body);
+        } catch (UnauthorizedException e) {
+            return delegate.put(uri, withFreshAccessToken(uri, headers, e), body);
+        }
+    }
+
+    @Override
+    public String delete(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException {
+        try {
+            return delegate.delete(uri, headers, body);
+        } catch (UnauthorizedException e) {
+            return delegate.delete(uri, withFreshAccessToken(uri, headers, e), body);
+        }
+    }
+
+    /**
+     * Returns the headers of the rejected request with a fresh access token. The token is only refreshed when
+     * no other request has refreshed it since the rejected request was sent.
+     *
+     * @throws UnauthorizedException the original exception, if the request was not authorized by an access token
+     */
+    private Header[] withFreshAccessToken(URI uri, Header[] headers, UnauthorizedException e)
+            throws IOException, SpotifyWebApiException {
+        int authorizationIndex = -1;
+        for (int i = 0; i < headers.length; i++) {
+            if (HttpHeaders.AUTHORIZATION.equalsIgnoreCase(headers[i].getName())
+                    && headers[i].getValue().startsWith(BEARER_PREFIX)) {
+                authorizationIndex = i;
+            }
+        }
+        if (authorizationIndex < 0) {
+            throw e;
+        }
+
+        String rejectedAccessToken = headers[authorizationIndex].getValue().substring(BEARER_PREFIX.length());
+        String accessToken = tokenManager.getAccessToken();
+        if (accessToken.equals(rejectedAccessToken)) {
+            logger.debug("Access token rejected by '{}', refreshing it", uri.getPath());
+            accessToken = tokenManager.refreshAccessToken();
+        }
+
+        Header[] freshHeaders = headers.clone();
+        freshHeaders[authorizationIndex] = new BasicHeader(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + accessToken);
+        return freshHeaders;
+    }
+
+}